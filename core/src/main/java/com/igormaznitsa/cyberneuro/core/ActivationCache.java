@@ -0,0 +1,295 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public final class ActivationCache {
+  static final long MISS = Long.MIN_VALUE;
+
+  private static final int PROBE_WINDOW = 8;
+  private static final int MAX_SEGMENTS = 16;
+  private static final int ENTRIES_PER_SEGMENT = 256;
+
+  private final int maxEntries;
+  private final CacheEviction eviction;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  private volatile Table table;
+
+  private ActivationCache(final int maxEntries, final CacheEviction eviction) {
+    this.maxEntries = maxEntries;
+    this.eviction = requireNonNull(eviction);
+  }
+
+  static ActivationCache of(final int maxEntries, final CacheEviction eviction) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("Max entries must be positive one");
+    }
+    return new ActivationCache(maxEntries, eviction);
+  }
+
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xFF51AFD7ED558CCDL;
+    value ^= value >>> 33;
+    value *= 0xC4CEB9FE1A85EC53L;
+    value ^= value >>> 33;
+    return value;
+  }
+
+  private static long hash(final long[] key, final int words) {
+    long result = 0L;
+    for (int i = 0; i < words; i++) {
+      result = mix(result * 31L + key[i]);
+    }
+    return result;
+  }
+
+  private static int ceilPowerOfTwo(final int value) {
+    return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+  }
+
+  public int getMaxEntries() {
+    return this.maxEntries;
+  }
+
+  public CacheEviction getEviction() {
+    return this.eviction;
+  }
+
+  public long getHits() {
+    return this.hits.sum();
+  }
+
+  public long getMisses() {
+    return this.misses.sum();
+  }
+
+  public long getEvictions() {
+    return this.evictions.sum();
+  }
+
+  public int getSize() {
+    final Table current = this.table;
+    return current == null ? 0 : current.size();
+  }
+
+  public void resetStatistics() {
+    this.hits.reset();
+    this.misses.reset();
+    this.evictions.reset();
+  }
+
+  public void invalidate() {
+    this.table = null;
+  }
+
+  Table acquire(final int words, final int valueWidth) {
+    Table result = this.table;
+    if (result == null || result.words != words || result.valueWidth != valueWidth) {
+      synchronized (this) {
+        result = this.table;
+        if (result == null || result.words != words || result.valueWidth != valueWidth) {
+          result = new Table(words, valueWidth);
+          this.table = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  final class Table {
+    private final int words;
+    private final int valueWidth;
+    private final Segment[] segments;
+
+    private Table(final int words, final int valueWidth) {
+      this.words = words;
+      this.valueWidth = valueWidth;
+      final int segmentCount = Math.min(MAX_SEGMENTS,
+          ceilPowerOfTwo(Math.max(1, maxEntries / ENTRIES_PER_SEGMENT)));
+      this.segments = new Segment[segmentCount];
+      for (int i = 0; i < segmentCount; i++) {
+        final int slots = maxEntries / segmentCount + (i < maxEntries % segmentCount ? 1 : 0);
+        this.segments[i] = new Segment(slots, words, valueWidth);
+      }
+    }
+
+    private Segment segmentFor(final long hash) {
+      return this.segments[(int) (hash >>> 32) & (this.segments.length - 1)];
+    }
+
+    int size() {
+      int result = 0;
+      for (final Segment s : this.segments) {
+        result += s.size();
+      }
+      return result;
+    }
+
+    long lookup(final long key) {
+      final long hash = mix(key);
+      final long result = this.segmentFor(hash).lookup(hash, key);
+      if (result == MISS) {
+        misses.increment();
+      } else {
+        hits.increment();
+      }
+      return result;
+    }
+
+    void store(final long key, final int value) {
+      final long hash = mix(key);
+      this.segmentFor(hash).store(hash, key, value);
+    }
+
+    boolean lookup(final long[] key, final int[] values) {
+      final long hash = hash(key, this.words);
+      if (this.segmentFor(hash).lookup(hash, key, values)) {
+        hits.increment();
+        return true;
+      }
+      misses.increment();
+      return false;
+    }
+
+    void store(final long[] key, final int[] values) {
+      final long hash = hash(key, this.words);
+      this.segmentFor(hash).store(hash, key, values);
+    }
+  }
+
+  private final class Segment {
+    private final int slots;
+    private final int window;
+    private final int words;
+    private final int valueWidth;
+    private final long[] keys;
+    private final int[] values;
+    private final long[] stamps;
+    private long tick;
+    private long randomState;
+    private int size;
+
+    private Segment(final int slots, final int words, final int valueWidth) {
+      this.slots = slots;
+      this.window = Math.min(PROBE_WINDOW, slots);
+      this.words = words;
+      this.valueWidth = valueWidth;
+      this.keys = new long[slots * words];
+      this.values = new int[slots * valueWidth];
+      this.stamps = new long[slots];
+      this.randomState = mix(System.nanoTime()) | 1L;
+    }
+
+    private int findStart(final long hash) {
+      return (int) (((hash & 0xFFFFFFFFL) * this.slots) >>> 32);
+    }
+
+    private int next(final int slot) {
+      return slot + 1 == this.slots ? 0 : slot + 1;
+    }
+
+    private boolean isSameKey(final int slot, final long key, final long[] multiKey) {
+      final int base = slot * this.words;
+      if (multiKey == null) {
+        return this.keys[base] == key;
+      }
+      for (int i = 0; i < this.words; i++) {
+        if (this.keys[base + i] != multiKey[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    synchronized int size() {
+      return this.size;
+    }
+
+    synchronized long lookup(final long hash, final long key) {
+      final int slot = this.find(hash, key, null);
+      return slot < 0 ? MISS : this.values[slot];
+    }
+
+    synchronized boolean lookup(final long hash, final long[] key, final int[] target) {
+      final int slot = this.find(hash, 0L, key);
+      if (slot < 0) {
+        return false;
+      }
+      System.arraycopy(this.values, slot * this.valueWidth, target, 0, this.valueWidth);
+      return true;
+    }
+
+    synchronized void store(final long hash, final long key, final int value) {
+      final int slot = this.claim(hash, key, null);
+      this.keys[slot] = key;
+      this.values[slot] = value;
+    }
+
+    synchronized void store(final long hash, final long[] key, final int[] source) {
+      final int slot = this.claim(hash, 0L, key);
+      System.arraycopy(key, 0, this.keys, slot * this.words, this.words);
+      System.arraycopy(source, 0, this.values, slot * this.valueWidth, this.valueWidth);
+    }
+
+    private int find(final long hash, final long key, final long[] multiKey) {
+      int slot = this.findStart(hash);
+      for (int i = 0; i < this.window; i++) {
+        if (this.stamps[slot] == 0L) {
+          return -1;
+        }
+        if (this.isSameKey(slot, key, multiKey)) {
+          if (eviction == CacheEviction.LEAST_RECENTLY_USED) {
+            this.stamps[slot] = ++this.tick;
+          }
+          return slot;
+        }
+        slot = this.next(slot);
+      }
+      return -1;
+    }
+
+    private int claim(final long hash, final long key, final long[] multiKey) {
+      final int start = this.findStart(hash);
+      int slot = start;
+      for (int i = 0; i < this.window; i++) {
+        if (this.stamps[slot] == 0L) {
+          this.size++;
+          this.stamps[slot] = ++this.tick;
+          return slot;
+        }
+        if (this.isSameKey(slot, key, multiKey)) {
+          this.stamps[slot] = ++this.tick;
+          return slot;
+        }
+        slot = this.next(slot);
+      }
+      final int victim = this.findVictim(start);
+      evictions.increment();
+      this.stamps[victim] = ++this.tick;
+      return victim;
+    }
+
+    private int findVictim(final int start) {
+      if (eviction == CacheEviction.RANDOM) {
+        this.randomState ^= this.randomState << 13;
+        this.randomState ^= this.randomState >>> 7;
+        this.randomState ^= this.randomState << 17;
+        return (start + (int) ((this.randomState >>> 1) % this.window)) % this.slots;
+      }
+      int victim = start;
+      int slot = start;
+      for (int i = 0; i < this.window; i++) {
+        if (this.stamps[slot] < this.stamps[victim]) {
+          victim = slot;
+        }
+        slot = this.next(slot);
+      }
+      return victim;
+    }
+  }
+}
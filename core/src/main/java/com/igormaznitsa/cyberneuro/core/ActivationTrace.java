@@ -0,0 +1,69 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import java.util.Arrays;
+
+public final class ActivationTrace {
+  private final long sequence;
+  private final long activationId;
+  private final long uid;
+  private final int[] inputs;
+  private final int inputSize;
+  private final int sum;
+  private final ConfidenceDegree confidence;
+
+  ActivationTrace(
+      final long sequence,
+      final long activationId,
+      final long uid,
+      final int[] inputs,
+      final int inputSize,
+      final int sum,
+      final ConfidenceDegree confidence) {
+    this.sequence = sequence;
+    this.activationId = activationId;
+    this.uid = uid;
+    this.inputs = inputs;
+    this.inputSize = inputSize;
+    this.sum = sum;
+    this.confidence = confidence;
+  }
+
+  long getSequence() {
+    return this.sequence;
+  }
+
+  public long getActivationId() {
+    return this.activationId;
+  }
+
+  public long getUid() {
+    return this.uid;
+  }
+
+  public int[] getInputs() {
+    return this.inputs.clone();
+  }
+
+  public int getInputSize() {
+    return this.inputSize;
+  }
+
+  public boolean isTruncated() {
+    return this.inputs.length < this.inputSize;
+  }
+
+  public int getSum() {
+    return this.sum;
+  }
+
+  public ConfidenceDegree getConfidence() {
+    return this.confidence;
+  }
+
+  @Override
+  public String toString() {
+    return "ActivationTrace: [activation=" + this.activationId + ", uid=" + this.uid
+        + ", inputs=" + Arrays.toString(this.inputs) + (this.isTruncated() ? "..." : "")
+        + ", sum=" + this.sum + ", confidence=" + this.confidence + ']';
+  }
+}
@@ -0,0 +1,137 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public final class ActivationTracer {
+  private static final long CONSUMED = -1L;
+
+  private final int mask;
+  private final int maxInputs;
+  private final AtomicLong cursor = new AtomicLong();
+  private final AtomicLong activationCounter = new AtomicLong();
+  private final AtomicLongArray sequences;
+  private final long[] activationIds;
+  private final long[] uids;
+  private final int[] sums;
+  private final byte[] degrees;
+  private final int[] inputSizes;
+  private final int[] inputs;
+  private volatile double samplingRate;
+
+  private ActivationTracer(final int capacity, final int maxInputs, final double samplingRate) {
+    this.mask = capacity - 1;
+    this.maxInputs = maxInputs;
+    this.sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      this.sequences.set(i, CONSUMED);
+    }
+    this.activationIds = new long[capacity];
+    this.uids = new long[capacity];
+    this.sums = new int[capacity];
+    this.degrees = new byte[capacity];
+    this.inputSizes = new int[capacity];
+    this.inputs = new int[capacity * maxInputs];
+    this.samplingRate = samplingRate;
+  }
+
+  public static ActivationTracer of(
+      final int capacity,
+      final int maxInputs,
+      final double samplingRate) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be positive power of two: " + capacity);
+    }
+    if (maxInputs < 0) {
+      throw new IllegalArgumentException("Max inputs must not be negative one");
+    }
+    if ((long) capacity * maxInputs > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too large ring buffer");
+    }
+    assertSamplingRate(samplingRate);
+    return new ActivationTracer(capacity, maxInputs, samplingRate);
+  }
+
+  private static void assertSamplingRate(final double samplingRate) {
+    if (!(samplingRate >= 0.0d && samplingRate <= 1.0d)) {
+      throw new IllegalArgumentException("Sampling rate must be in [0, 1]: " + samplingRate);
+    }
+  }
+
+  public double getSamplingRate() {
+    return this.samplingRate;
+  }
+
+  public void setSamplingRate(final double samplingRate) {
+    assertSamplingRate(samplingRate);
+    this.samplingRate = samplingRate;
+  }
+
+  public int getCapacity() {
+    return this.mask + 1;
+  }
+
+  public long getRecordedCount() {
+    return this.cursor.get();
+  }
+
+  long sample() {
+    final double rate = this.samplingRate;
+    if (rate <= 0.0d || (rate < 1.0d && ThreadLocalRandom.current().nextDouble() >= rate)) {
+      return -1L;
+    }
+    return this.activationCounter.incrementAndGet();
+  }
+
+  void record(
+      final long activationId,
+      final long uid,
+      final int[] inputValues,
+      final int inputCount,
+      final int sum) {
+    final long position = this.cursor.getAndIncrement();
+    final int slot = (int) position & this.mask;
+    final long writing = -2L - position;
+    long previous;
+    do {
+      previous = this.sequences.get(slot);
+      if (previous < CONSUMED) {
+        return;
+      }
+    } while (!this.sequences.compareAndSet(slot, previous, writing));
+    this.activationIds[slot] = activationId;
+    this.uids[slot] = uid;
+    this.sums[slot] = sum;
+    this.degrees[slot] = (byte) CyberNeuron.toConfidence(sum).ordinal();
+    this.inputSizes[slot] = inputCount;
+    System.arraycopy(inputValues, 0, this.inputs, slot * this.maxInputs,
+        Math.min(inputCount, this.maxInputs));
+    this.sequences.set(slot, position);
+  }
+
+  public List<ActivationTrace> drain(final long uid) {
+    final List<ActivationTrace> result = new ArrayList<>();
+    final ConfidenceDegree[] degreeValues = ConfidenceDegree.values();
+    for (int slot = 0; slot <= this.mask; slot++) {
+      final long sequence = this.sequences.get(slot);
+      if (sequence < 0L || this.uids[slot] != uid) {
+        continue;
+      }
+      final long activationId = this.activationIds[slot];
+      final int sum = this.sums[slot];
+      final int degree = this.degrees[slot];
+      final int inputSize = this.inputSizes[slot];
+      final int[] recorded = new int[Math.min(inputSize, this.maxInputs)];
+      System.arraycopy(this.inputs, slot * this.maxInputs, recorded, 0, recorded.length);
+      if (this.uids[slot] == uid && this.sequences.compareAndSet(slot, sequence, CONSUMED)) {
+        result.add(new ActivationTrace(sequence, activationId, uid, recorded, inputSize, sum,
+            degreeValues[degree]));
+      }
+    }
+    result.sort((a, b) -> Long.compare(a.getSequence(), b.getSequence()));
+    return result;
+  }
+}
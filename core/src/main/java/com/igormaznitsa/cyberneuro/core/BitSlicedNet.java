@@ -0,0 +1,123 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.lang.String.format;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BitSlicedNet {
+  private static final int LANES = BitSlicedNeuron.LANES;
+
+  private final ExecutionPlan plan;
+  private final int inputCount;
+  private final BitSlicedNeuron[] slicedNeurons;
+  private final int[][] slicedInputSlots;
+  private final int[] slicedOutputSlots;
+  private final boolean[] slicedSteps;
+  private final boolean[] binaryInputs;
+
+  private BitSlicedNet(final ExecutionPlan plan) {
+    this.plan = plan;
+    this.inputCount = plan.getInputCount();
+    this.slicedSteps = new boolean[plan.getStepCount()];
+    this.binaryInputs = new boolean[this.inputCount];
+    final List<BitSlicedNeuron> neurons = new ArrayList<>();
+    final List<int[]> inputSlots = new ArrayList<>();
+    final List<Integer> outputSlots = new ArrayList<>();
+    for (int step = 0; step < plan.getStepCount(); step++) {
+      final CyberNeuron neuron = plan.findNeuron(step);
+      if (neuron == null || neuron.getRowLength() != 2) {
+        continue;
+      }
+      final int from = plan.getStepInputFrom(step);
+      final int[] slots = new int[plan.getStepInputTo(step) - from];
+      boolean inputFed = true;
+      for (int i = 0; i < slots.length && inputFed; i++) {
+        slots[i] = plan.getStepInputSlot(from + i);
+        inputFed = slots[i] < this.inputCount;
+      }
+      if (inputFed) {
+        this.slicedSteps[step] = true;
+        for (final int slot : slots) {
+          this.binaryInputs[slot] = true;
+        }
+        neurons.add(BitSlicedNeuron.of(neuron));
+        inputSlots.add(slots);
+        outputSlots.add(plan.getStepOutputSlot(step));
+      }
+    }
+    this.slicedNeurons = neurons.toArray(new BitSlicedNeuron[0]);
+    this.slicedInputSlots = inputSlots.toArray(new int[0][]);
+    this.slicedOutputSlots = outputSlots.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  static BitSlicedNet of(final ExecutionPlan plan) {
+    return new BitSlicedNet(plan);
+  }
+
+  public int getSlicedNeuronCount() {
+    return this.slicedNeurons.length;
+  }
+
+  public int getInputSize() {
+    return this.inputCount;
+  }
+
+  public int getOutputSize() {
+    return this.plan.getOutputCount();
+  }
+
+  public int[] activateBatch(final byte[] samples, final int sampleCount) {
+    if (sampleCount < 0 || (long) sampleCount * this.inputCount > samples.length) {
+      throw new IllegalArgumentException(
+          format("Wrong batch length, detected %d but expected %d", samples.length,
+              (long) sampleCount * this.inputCount));
+    }
+    final int outputCount = this.plan.getOutputCount();
+    final int[] result = new int[sampleCount * outputCount];
+    final int[][] values = new int[LANES][];
+    for (int s = 0; s < LANES; s++) {
+      values[s] = this.plan.makeValues();
+    }
+    final int[] scratch = this.plan.makeScratch();
+    final long[] inputBits = new long[this.inputCount];
+    final int[] sums = new int[LANES];
+    final long[][] rowBits = new long[this.slicedNeurons.length][];
+    for (int n = 0; n < rowBits.length; n++) {
+      rowBits[n] = new long[this.slicedInputSlots[n].length];
+    }
+    for (int first = 0; first < sampleCount; first += LANES) {
+      final int lanes = Math.min(LANES, sampleCount - first);
+      for (int i = 0; i < this.inputCount; i++) {
+        long bits = 0L;
+        for (int s = 0; s < lanes; s++) {
+          final int value = samples[(first + s) * this.inputCount + i] & 0xFF;
+          values[s][i] = value;
+          if (this.binaryInputs[i]) {
+            if (value > 1) {
+              throw new IllegalArgumentException(
+                  format("Input %d of sample %d is not binary: %d", i, first + s, value));
+            }
+            bits |= (long) value << s;
+          }
+        }
+        inputBits[i] = bits;
+      }
+      for (int n = 0; n < this.slicedNeurons.length; n++) {
+        final int[] slots = this.slicedInputSlots[n];
+        for (int i = 0; i < slots.length; i++) {
+          rowBits[n][i] = inputBits[slots[i]];
+        }
+        this.slicedNeurons[n].sum(rowBits[n], sums, 0, lanes);
+        for (int s = 0; s < lanes; s++) {
+          values[s][this.slicedOutputSlots[n]] = sums[s];
+        }
+      }
+      for (int s = 0; s < lanes; s++) {
+        this.plan.execute(values[s], scratch, this.slicedSteps);
+        this.plan.readOutputs(values[s], result, (first + s) * outputCount);
+      }
+    }
+    return result;
+  }
+}
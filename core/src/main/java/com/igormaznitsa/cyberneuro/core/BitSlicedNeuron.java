@@ -0,0 +1,141 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.lang.String.format;
+
+public final class BitSlicedNeuron {
+  static final int LANES = Long.SIZE;
+  private static final int DELTA_BITS = 8;
+
+  private final int inputSize;
+  private final int words;
+  private final int baseline;
+  private final long[] positivePlanes;
+  private final long[] negativePlanes;
+
+  private BitSlicedNeuron(final CyberNeuron neuron) {
+    this.inputSize = neuron.getInputSize();
+    this.words = (this.inputSize + LANES - 1) / LANES;
+    this.baseline = neuron.getBaseline();
+    this.positivePlanes = new long[DELTA_BITS * this.words];
+    this.negativePlanes = new long[DELTA_BITS * this.words];
+    for (int row = 0; row < this.inputSize; row++) {
+      final int delta = neuron.getTableValue(row * 2 + 1) - neuron.getTableValue(row * 2);
+      final int magnitude = Math.abs(delta);
+      final long[] planes = delta >= 0 ? this.positivePlanes : this.negativePlanes;
+      for (int b = 0; b < DELTA_BITS; b++) {
+        if ((magnitude >>> b & 1) != 0) {
+          planes[b * this.words + row / LANES] |= 1L << row;
+        }
+      }
+    }
+  }
+
+  public static BitSlicedNeuron of(final CyberNeuron neuron) {
+    if (neuron.getRowLength() != 2) {
+      throw new IllegalArgumentException(
+          "Only neuron with binary inputs can be bit-sliced, row length: "
+              + neuron.getRowLength());
+    }
+    if (!neuron.isLocked()) {
+      throw new IllegalStateException("Only locked neuron can be bit-sliced");
+    }
+    return new BitSlicedNeuron(neuron);
+  }
+
+  static void transpose(final long[] block) {
+    long mask = 0x00000000FFFFFFFFL;
+    for (int j = 32; j != 0; j >>>= 1, mask ^= mask << j) {
+      for (int k = 0; k < LANES; k = ((k | j) + 1) & ~j) {
+        final long t = ((block[k] >>> j) ^ block[k | j]) & mask;
+        block[k] ^= t << j;
+        block[k | j] ^= t;
+      }
+    }
+  }
+
+  public int getInputSize() {
+    return this.inputSize;
+  }
+
+  public int getPackedWords() {
+    return this.words;
+  }
+
+  public int calcPacked(final long[] packed) {
+    if (packed.length < this.words) {
+      throw new IllegalArgumentException(
+          format("Wrong packed length, detected %d but expected %d", packed.length, this.words));
+    }
+    return this.calcWords(packed, 0);
+  }
+
+  private int calcWords(final long[] packed, final int offset) {
+    int acc = this.baseline;
+    for (int b = 0; b < DELTA_BITS; b++) {
+      int count = 0;
+      final int planeOffset = b * this.words;
+      for (int w = 0; w < this.words; w++) {
+        final long value = packed[offset + w];
+        count += Long.bitCount(value & this.positivePlanes[planeOffset + w])
+            - Long.bitCount(value & this.negativePlanes[planeOffset + w]);
+      }
+      acc += count << b;
+    }
+    return acc;
+  }
+
+  public void calcPackedBatch(final long[] packed, final int sampleCount, final int[] results) {
+    if (sampleCount < 0 || (long) sampleCount * this.words > packed.length) {
+      throw new IllegalArgumentException(
+          format("Wrong packed length, detected %d but expected %d", packed.length,
+              (long) sampleCount * this.words));
+    }
+    for (int s = 0; s < sampleCount; s++) {
+      results[s] = this.calcWords(packed, s * this.words);
+    }
+  }
+
+  public void calcBatch(final byte[] samples, final int sampleCount, final int[] results) {
+    if (sampleCount < 0 || (long) sampleCount * this.inputSize > samples.length) {
+      throw new IllegalArgumentException(
+          format("Wrong batch length, detected %d but expected %d", samples.length,
+              (long) sampleCount * this.inputSize));
+    }
+    final long[] packed = new long[this.words];
+    int offset = 0;
+    for (int s = 0; s < sampleCount; s++) {
+      for (int w = 0; w < this.words; w++) {
+        final int to = Math.min(LANES, this.inputSize - w * LANES);
+        long bits = 0L;
+        for (int i = 0; i < to; i++) {
+          final int value = samples[offset++];
+          if ((value & ~1) != 0) {
+            throw new IllegalArgumentException("Input value is out of range: " + (value & 0xFF));
+          }
+          bits |= (long) value << i;
+        }
+        packed[w] = bits;
+      }
+      results[s] = this.calcWords(packed, 0);
+    }
+  }
+
+  void sum(final long[] rowBits, final int[] results, final int offset, final int lanes) {
+    final long[] lanePacked = new long[LANES * this.words];
+    final long[] block = new long[LANES];
+    for (int w = 0; w < this.words; w++) {
+      final int rows = Math.min(LANES, this.inputSize - w * LANES);
+      System.arraycopy(rowBits, w * LANES, block, 0, rows);
+      for (int i = rows; i < LANES; i++) {
+        block[i] = 0L;
+      }
+      transpose(block);
+      for (int s = 0; s < lanes; s++) {
+        lanePacked[s * this.words + w] = block[s];
+      }
+    }
+    for (int s = 0; s < lanes; s++) {
+      results[offset + s] = this.calcWords(lanePacked, s * this.words);
+    }
+  }
+}
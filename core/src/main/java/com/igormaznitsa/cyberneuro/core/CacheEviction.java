@@ -0,0 +1,6 @@
+package com.igormaznitsa.cyberneuro.core;
+
+public enum CacheEviction {
+  LEAST_RECENTLY_USED,
+  RANDOM
+}
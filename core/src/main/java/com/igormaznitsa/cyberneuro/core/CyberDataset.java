@@ -0,0 +1,175 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+public final class CyberDataset implements Closeable {
+  static final int MAGIC = 0x434E4453;
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 32;
+
+  private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+  private final FileChannel channel;
+  private final int inputSize;
+  private final int bitsPerValue;
+  private final int maxValue;
+  private final int recordSize;
+  private final long recordCount;
+  private final int recordsPerSegment;
+  private final MappedByteBuffer[] segments;
+
+  private CyberDataset(final FileChannel channel) throws IOException {
+    this.channel = channel;
+    final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    while (header.hasRemaining()) {
+      if (channel.read(header, header.position()) < 0) {
+        throw new IOException("Unexpected end of dataset header");
+      }
+    }
+    header.flip();
+    if (header.getInt() != MAGIC) {
+      throw new IOException("Not a cyber dataset");
+    }
+    final int version = header.getInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported dataset version: " + version);
+    }
+    this.inputSize = header.getInt();
+    this.bitsPerValue = header.getInt();
+    this.maxValue = header.getInt();
+    this.recordSize = header.getInt();
+    this.recordCount = header.getLong();
+    if (this.inputSize <= 0 || findBitsPerValue(this.maxValue) != this.bitsPerValue
+        || findRecordSize(this.inputSize, this.bitsPerValue) != this.recordSize) {
+      throw new IOException("Corrupted dataset header");
+    }
+    if (HEADER_SIZE + this.recordCount * this.recordSize > channel.size()) {
+      throw new IOException(
+          format("Dataset is truncated, expected %d records", this.recordCount));
+    }
+
+    this.recordsPerSegment = (int) Math.min(MAX_SEGMENT_SIZE / this.recordSize,
+        Math.max(1L, this.recordCount));
+    final int segmentCount =
+        (int) ((this.recordCount + this.recordsPerSegment - 1) / this.recordsPerSegment);
+    this.segments = new MappedByteBuffer[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      final long firstRecord = (long) i * this.recordsPerSegment;
+      final long records = Math.min(this.recordsPerSegment, this.recordCount - firstRecord);
+      this.segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+          HEADER_SIZE + firstRecord * this.recordSize, records * this.recordSize);
+    }
+  }
+
+  public static CyberDataset open(final Path path) throws IOException {
+    final FileChannel channel = FileChannel.open(requireNonNull(path), StandardOpenOption.READ);
+    try {
+      return new CyberDataset(channel);
+    } catch (IOException | RuntimeException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+  static int findBitsPerValue(final int maxValue) {
+    final int bits = InputPacker.bitsFor(maxValue + 1);
+    if (bits <= 1) {
+      return 1;
+    }
+    if (bits <= 2) {
+      return 2;
+    }
+    return bits <= 4 ? 4 : 8;
+  }
+
+  static int findRecordSize(final int inputSize, final int bitsPerValue) {
+    return (inputSize * bitsPerValue + 7) / 8 + 1;
+  }
+
+  public int getInputSize() {
+    return this.inputSize;
+  }
+
+  public int getMaxValue() {
+    return this.maxValue;
+  }
+
+  public int getBitsPerValue() {
+    return this.bitsPerValue;
+  }
+
+  public long getRecordCount() {
+    return this.recordCount;
+  }
+
+  int getRecordSize() {
+    return this.recordSize;
+  }
+
+  public CyberDatasetRecord record(final long index) {
+    final CyberDatasetRecord result = new CyberDatasetRecord(this);
+    this.moveTo(result, index);
+    return result;
+  }
+
+  void moveTo(final CyberDatasetRecord record, final long index) {
+    if (index < 0 || index >= this.recordCount) {
+      throw new IndexOutOfBoundsException("Record index is invalid: " + index);
+    }
+    final int segment = (int) (index / this.recordsPerSegment);
+    final int offset = (int) (index % this.recordsPerSegment) * this.recordSize;
+    record.point(index, this.segments[segment], offset);
+  }
+
+  public void forEach(final Consumer<CyberDatasetRecord> consumer) {
+    this.forEach(0L, this.recordCount, consumer);
+  }
+
+  public void forEach(
+      final long fromIndex,
+      final long toIndex,
+      final Consumer<CyberDatasetRecord> consumer) {
+    final CyberDatasetRecord record = new CyberDatasetRecord(this);
+    for (long i = fromIndex; i < toIndex; i++) {
+      this.moveTo(record, i);
+      consumer.accept(record);
+    }
+  }
+
+  void assertFits(final CyberNeuron neuron) {
+    if (neuron.getInputSize() != this.inputSize) {
+      throw new IllegalArgumentException(
+          format("Wrong input size: %d != %d", neuron.getInputSize(), this.inputSize));
+    }
+    if (this.maxValue >= neuron.getRowLength()) {
+      throw new IllegalArgumentException(
+          format("Dataset max value %d is out of neuron range: %d", this.maxValue,
+              neuron.getRowLength()));
+    }
+  }
+
+  public void teach(final CyberNeuron neuron, final LearnStrategy learnStrategy) {
+    this.assertFits(neuron);
+    final int[] inputs = new int[this.inputSize];
+    if (this.bitsPerValue == Byte.SIZE) {
+      this.forEach(r -> neuron.teach(r.inputBytes(), learnStrategy, r.getExpected(), inputs));
+    } else {
+      this.forEach(r -> neuron.teach(r.copyInputs(inputs), learnStrategy, r.getExpected()));
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.channel.close();
+  }
+}
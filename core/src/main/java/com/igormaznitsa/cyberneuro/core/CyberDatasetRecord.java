@@ -0,0 +1,69 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import java.nio.ByteBuffer;
+
+public final class CyberDatasetRecord {
+  private static final ConfidenceDegree[] DEGREES = ConfidenceDegree.values();
+
+  private final int inputSize;
+  private final int bitsPerValue;
+  private final int inputBytes;
+  private final int mask;
+  private ByteBuffer segment;
+  private ByteBuffer view;
+  private long index;
+  private int offset;
+
+  CyberDatasetRecord(final CyberDataset dataset) {
+    this.inputSize = dataset.getInputSize();
+    this.bitsPerValue = dataset.getBitsPerValue();
+    this.inputBytes = dataset.getRecordSize() - 1;
+    this.mask = (1 << this.bitsPerValue) - 1;
+  }
+
+  void point(final long index, final ByteBuffer segment, final int offset) {
+    if (this.segment != segment) {
+      this.segment = segment;
+      this.view = segment.asReadOnlyBuffer();
+    }
+    this.index = index;
+    this.offset = offset;
+  }
+
+  public long getIndex() {
+    return this.index;
+  }
+
+  public int getInputSize() {
+    return this.inputSize;
+  }
+
+  public int getInput(final int inputIndex) {
+    if (inputIndex < 0 || inputIndex >= this.inputSize) {
+      throw new IndexOutOfBoundsException("Input index is invalid: " + inputIndex);
+    }
+    final int bit = inputIndex * this.bitsPerValue;
+    return (this.segment.get(this.offset + (bit >>> 3)) >>> (bit & 7)) & this.mask;
+  }
+
+  public int[] copyInputs(final int[] target) {
+    for (int i = 0; i < this.inputSize; i++) {
+      final int bit = i * this.bitsPerValue;
+      target[i] = (this.segment.get(this.offset + (bit >>> 3)) >>> (bit & 7)) & this.mask;
+    }
+    return target;
+  }
+
+  public ByteBuffer inputBytes() {
+    this.view.limit(this.offset + this.inputBytes).position(this.offset);
+    return this.view;
+  }
+
+  public ConfidenceDegree getExpected() {
+    final int ordinal = this.segment.get(this.offset + this.inputBytes);
+    if (ordinal < 0 || ordinal >= DEGREES.length) {
+      throw new IllegalStateException("Unexpected confidence code: " + ordinal);
+    }
+    return DEGREES[ordinal];
+  }
+}
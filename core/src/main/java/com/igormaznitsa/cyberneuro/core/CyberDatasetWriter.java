@@ -0,0 +1,119 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public final class CyberDatasetWriter implements Closeable {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final FileChannel channel;
+  private final int inputSize;
+  private final int bitsPerValue;
+  private final int maxValue;
+  private final int recordSize;
+  private final ByteBuffer buffer;
+  private long recordCount;
+  private boolean closed;
+
+  private CyberDatasetWriter(
+      final FileChannel channel,
+      final int inputSize,
+      final int maxValue) throws IOException {
+    this.channel = channel;
+    this.inputSize = inputSize;
+    this.maxValue = maxValue;
+    this.bitsPerValue = CyberDataset.findBitsPerValue(maxValue);
+    this.recordSize = CyberDataset.findRecordSize(inputSize, this.bitsPerValue);
+    this.buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, this.recordSize));
+    this.channel.position(CyberDataset.HEADER_SIZE);
+  }
+
+  public static CyberDatasetWriter create(
+      final Path path,
+      final int inputSize,
+      final int maxValue) throws IOException {
+    if (inputSize <= 0) {
+      throw new IllegalArgumentException("Number of inputs must be positive one");
+    }
+    if (maxValue < 0 || maxValue > 0xFF) {
+      throw new IllegalArgumentException("Max value must be in 0..255: " + maxValue);
+    }
+    return new CyberDatasetWriter(FileChannel.open(requireNonNull(path),
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE),
+        inputSize, maxValue);
+  }
+
+  public long getRecordCount() {
+    return this.recordCount;
+  }
+
+  public void write(final int[] inputs, final ConfidenceDegree expected) throws IOException {
+    if (this.closed) {
+      throw new IllegalStateException("Already closed");
+    }
+    if (inputs.length != this.inputSize) {
+      throw new IllegalArgumentException(
+          format("Wrong input size: %d != %d", this.inputSize, inputs.length));
+    }
+    requireNonNull(expected);
+    if (this.buffer.remaining() < this.recordSize) {
+      this.flush();
+    }
+    final int start = this.buffer.position();
+    for (int i = 0; i < this.recordSize; i++) {
+      this.buffer.put(start + i, (byte) 0);
+    }
+    for (int i = 0; i < inputs.length; i++) {
+      final int value = inputs[i];
+      if (value < 0 || value > this.maxValue) {
+        throw new IllegalArgumentException(format("Input %d is out of range: %d", i, value));
+      }
+      final int bit = i * this.bitsPerValue;
+      final int index = start + (bit >>> 3);
+      this.buffer.put(index, (byte) (this.buffer.get(index) | (value << (bit & 7))));
+    }
+    this.buffer.put(start + this.recordSize - 1, (byte) expected.ordinal());
+    this.buffer.position(start + this.recordSize);
+    this.recordCount++;
+  }
+
+  private void flush() throws IOException {
+    this.buffer.flip();
+    while (this.buffer.hasRemaining()) {
+      this.channel.write(this.buffer);
+    }
+    this.buffer.clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    try {
+      this.flush();
+      final ByteBuffer header = ByteBuffer.allocate(CyberDataset.HEADER_SIZE);
+      header.putInt(CyberDataset.MAGIC)
+          .putInt(CyberDataset.VERSION)
+          .putInt(this.inputSize)
+          .putInt(this.bitsPerValue)
+          .putInt(this.maxValue)
+          .putInt(this.recordSize)
+          .putLong(this.recordCount)
+          .flip();
+      while (header.hasRemaining()) {
+        this.channel.write(header, header.position());
+      }
+    } finally {
+      this.channel.close();
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.lang.String.format;
+
+public final class CyberEvaluationReport {
+  private static final int DEGREES = ConfidenceDegree.values().length;
+
+  private final int outputCount;
+  private final long[] confusion;
+  private final long sampleCount;
+  private final long elapsedNanos;
+
+  CyberEvaluationReport(
+      final int outputCount,
+      final long[] confusion,
+      final long sampleCount,
+      final long elapsedNanos) {
+    this.outputCount = outputCount;
+    this.confusion = confusion;
+    this.sampleCount = sampleCount;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  static int cellIndex(final int output, final int expected, final int actual) {
+    return (output * DEGREES + expected) * DEGREES + actual;
+  }
+
+  static int cellCount(final int outputCount) {
+    return outputCount * DEGREES * DEGREES;
+  }
+
+  public int getOutputCount() {
+    return this.outputCount;
+  }
+
+  public long getSampleCount() {
+    return this.sampleCount;
+  }
+
+  public long getElapsedNanos() {
+    return this.elapsedNanos;
+  }
+
+  public double getSamplesPerSecond() {
+    return this.elapsedNanos == 0L ? 0.0d : this.sampleCount * 1.0e9d / this.elapsedNanos;
+  }
+
+  public long getConfusion(
+      final int output,
+      final ConfidenceDegree expected,
+      final ConfidenceDegree actual) {
+    if (output < 0 || output >= this.outputCount) {
+      throw new IndexOutOfBoundsException("Output index is invalid: " + output);
+    }
+    return this.confusion[cellIndex(output, expected.ordinal(), actual.ordinal())];
+  }
+
+  public long getConfusion(final ConfidenceDegree expected, final ConfidenceDegree actual) {
+    long result = 0L;
+    for (int output = 0; output < this.outputCount; output++) {
+      result += this.confusion[cellIndex(output, expected.ordinal(), actual.ordinal())];
+    }
+    return result;
+  }
+
+  public double getAccuracy(final int output) {
+    if (output < 0 || output >= this.outputCount) {
+      throw new IndexOutOfBoundsException("Output index is invalid: " + output);
+    }
+    long correct = 0L;
+    long total = 0L;
+    for (int expected = 0; expected < DEGREES; expected++) {
+      for (int actual = 0; actual < DEGREES; actual++) {
+        final long count = this.confusion[cellIndex(output, expected, actual)];
+        total += count;
+        if (expected == actual) {
+          correct += count;
+        }
+      }
+    }
+    return total == 0L ? 0.0d : (double) correct / total;
+  }
+
+  public double getAccuracy() {
+    long correct = 0L;
+    long total = 0L;
+    for (int i = 0; i < this.confusion.length; i++) {
+      total += this.confusion[i];
+      if ((i / DEGREES) % DEGREES == i % DEGREES) {
+        correct += this.confusion[i];
+      }
+    }
+    return total == 0L ? 0.0d : (double) correct / total;
+  }
+
+  @Override
+  public String toString() {
+    return format("CyberEvaluationReport(samples=%d, outputs=%d, accuracy=%.4f, samples/s=%.1f)",
+        this.sampleCount, this.outputCount, this.getAccuracy(), this.getSamplesPerSecond());
+  }
+}
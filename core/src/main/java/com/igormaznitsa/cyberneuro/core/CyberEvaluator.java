@@ -0,0 +1,181 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public final class CyberEvaluator {
+  private static final long MIN_SAMPLES_PER_TASK = 1024L;
+
+  private final ForkJoinPool pool;
+
+  private CyberEvaluator(final ForkJoinPool pool) {
+    this.pool = requireNonNull(pool);
+  }
+
+  public static CyberEvaluator of(final ForkJoinPool pool) {
+    return new CyberEvaluator(pool);
+  }
+
+  public static CyberEvaluator ofCommonPool() {
+    return new CyberEvaluator(ForkJoinPool.commonPool());
+  }
+
+  private static void assertLocked(final HasLock entity) {
+    if (!entity.isLocked()) {
+      throw new IllegalStateException("Only locked entity can be evaluated");
+    }
+  }
+
+  public CyberEvaluationReport evaluate(final CyberNeuron neuron, final CyberDataset dataset) {
+    assertLocked(neuron);
+    dataset.assertFits(neuron);
+    final boolean bytes = dataset.getBitsPerValue() == Byte.SIZE;
+    return this.run(1, dataset.getRecordCount(), (from, to, counters) -> {
+      final int[] inputs = new int[dataset.getInputSize()];
+      dataset.forEach(from, to, r -> {
+        final ConfidenceDegree actual = bytes
+            ? CyberNeuron.toConfidence(neuron.calc(r.inputBytes()))
+            : neuron.check(0, r.copyInputs(inputs));
+        counters[CyberEvaluationReport.cellIndex(0, r.getExpected().ordinal(),
+            actual.ordinal())]++;
+      });
+    });
+  }
+
+  public CyberEvaluationReport evaluate(
+      final CyberNet net,
+      final int outputIndex,
+      final CyberDataset dataset) {
+    assertLocked(net);
+    if (net.getInputSize() != dataset.getInputSize()) {
+      throw new IllegalArgumentException(
+          format("Wrong input size: %d != %d", net.getInputSize(), dataset.getInputSize()));
+    }
+    if (!net.isOutputIndexValid(outputIndex)) {
+      throw new IndexOutOfBoundsException("Output index is invalid: " + outputIndex);
+    }
+    final ExecutionPlan plan = net.findExecutionPlan();
+    final int outputSlot = plan.getOutputSlot(outputIndex);
+    return this.run(1, dataset.getRecordCount(), (from, to, counters) -> {
+      final int[] values = plan.makeValues();
+      final int[] scratch = plan.makeScratch();
+      dataset.forEach(from, to, r -> {
+        r.copyInputs(values);
+        plan.execute(values, scratch);
+        counters[CyberEvaluationReport.cellIndex(0, r.getExpected().ordinal(),
+            CyberNeuron.toConfidence(values[outputSlot]).ordinal())]++;
+      });
+    });
+  }
+
+  public CyberEvaluationReport evaluate(
+      final CyberNeuron neuron,
+      final int[][] inputs,
+      final ConfidenceDegree[] expected) {
+    assertLocked(neuron);
+    if (inputs.length != expected.length) {
+      throw new IllegalArgumentException(
+          format("Wrong number of expected values: %d != %d", expected.length, inputs.length));
+    }
+    return this.run(1, inputs.length, (from, to, counters) -> {
+      for (int s = (int) from; s < to; s++) {
+        counters[CyberEvaluationReport.cellIndex(0, expected[s].ordinal(),
+            neuron.check(0, inputs[s]).ordinal())]++;
+      }
+    });
+  }
+
+  public CyberEvaluationReport evaluate(
+      final CyberNet net,
+      final int[][] inputs,
+      final ConfidenceDegree[][] expected) {
+    assertLocked(net);
+    if (inputs.length != expected.length) {
+      throw new IllegalArgumentException(
+          format("Wrong number of expected values: %d != %d", expected.length, inputs.length));
+    }
+    final ExecutionPlan plan = net.findExecutionPlan();
+    final int outputCount = plan.getOutputCount();
+    return this.run(outputCount, inputs.length, (from, to, counters) -> {
+      final int[] values = plan.makeValues();
+      final int[] scratch = plan.makeScratch();
+      for (int s = (int) from; s < to; s++) {
+        if (inputs[s].length != plan.getInputCount() || expected[s].length != outputCount) {
+          throw new IllegalArgumentException("Wrong sample shape at index " + s);
+        }
+        System.arraycopy(inputs[s], 0, values, 0, inputs[s].length);
+        plan.execute(values, scratch);
+        for (int o = 0; o < outputCount; o++) {
+          counters[CyberEvaluationReport.cellIndex(o, expected[s][o].ordinal(),
+              CyberNeuron.toConfidence(values[plan.getOutputSlot(o)]).ordinal())]++;
+        }
+      }
+    });
+  }
+
+  private CyberEvaluationReport run(
+      final int outputCount,
+      final long sampleCount,
+      final RangeScorer scorer) {
+    final long threshold = Math.max(MIN_SAMPLES_PER_TASK,
+        sampleCount / (this.pool.getParallelism() * 8L));
+    final long start = System.nanoTime();
+    final long[] counters = this.pool.invoke(
+        new ScoreTask(scorer, CyberEvaluationReport.cellCount(outputCount), 0L, sampleCount,
+            threshold));
+    return new CyberEvaluationReport(outputCount, counters, sampleCount,
+        System.nanoTime() - start);
+  }
+
+  @FunctionalInterface
+  private interface RangeScorer {
+    void score(long from, long to, long[] counters);
+  }
+
+  private static final class ScoreTask extends RecursiveTask<long[]> {
+    private static final long serialVersionUID = 1L;
+
+    private final RangeScorer scorer;
+    private final int cells;
+    private final long from;
+    private final long to;
+    private final long threshold;
+
+    private ScoreTask(
+        final RangeScorer scorer,
+        final int cells,
+        final long from,
+        final long to,
+        final long threshold) {
+      this.scorer = scorer;
+      this.cells = cells;
+      this.from = from;
+      this.to = to;
+      this.threshold = threshold;
+    }
+
+    @Override
+    protected long[] compute() {
+      if (this.to - this.from <= this.threshold) {
+        final long[] counters = new long[this.cells];
+        this.scorer.score(this.from, this.to, counters);
+        return counters;
+      }
+      final long middle = (this.from + this.to) >>> 1;
+      final ScoreTask left =
+          new ScoreTask(this.scorer, this.cells, this.from, middle, this.threshold);
+      final ScoreTask right =
+          new ScoreTask(this.scorer, this.cells, middle, this.to, this.threshold);
+      left.fork();
+      final long[] result = right.compute();
+      final long[] leftResult = left.join();
+      for (int i = 0; i < result.length; i++) {
+        result[i] += leftResult[i];
+      }
+      return result;
+    }
+  }
+}
@@ -73,7 +73,7 @@ public final class CyberLink implements Comparable<CyberLink> {
 
   @Override
   public int hashCode() {
-    return Objects.hash(this.source, this.target, this.targetIndex);
+    return 31 * (31 * this.source.hashCode() + this.target.hashCode()) + this.targetIndex;
   }
 
   @Override
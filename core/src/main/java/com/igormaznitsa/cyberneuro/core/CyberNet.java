@@ -2,82 +2,231 @@ package com.igormaznitsa.cyberneuro.core;
 
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
-import static java.util.stream.Collectors.toUnmodifiableSet;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 @SuppressWarnings({"UnusedReturnValue", "BooleanMethodIsAlwaysInverted"})
 public class CyberNet implements CyberNetEntity, HasOutput, HasLock, IsActivable {
   private final Map<CyberNetEntity, Set<CyberLink>> entities = new LinkedHashMap<>();
+  private final Map<CyberNetEntity, LinkState> linkStates = new HashMap<>();
+  private final List<CyberNet> nestedNets = new ArrayList<>();
+  private final LockEpoch lockEpoch = new LockEpoch();
   private final long uid;
   private int inputCount;
   private int outputCount;
-
-  private boolean lock;
+  private int entitiesWithFreeInputs;
+  private int entitiesWithUnusedOutputs;
+
+  private volatile boolean lock;
+  private volatile ActivationCache activationCache;
+  private volatile CacheState cacheState;
+  private volatile ExecutionPlan executionPlan;
+  private volatile InputPacker inputPacker;
+  private volatile ActivationTracer tracer;
+  private long memoryBudget = Long.MAX_VALUE;
+  private long reservedBytes = CyberNetFootprint.NET_OBJECT;
 
   public CyberNet() {
-    this.uid = UID_GENERATOR.incrementAndGet();
+    this.uid = UidAllocator.next();
+  }
+
+  @Override
+  public boolean isLocked() {
+    return this.lock;
   }
 
-  private static String makeReadableId(final HasUid entity) {
-    if (entity instanceof CyberNeuron) {
-      return "N_" + entity.getUid();
+  @Override
+  public void setLock(boolean flag) {
+    if (this.lock != flag) {
+      this.lockEpoch.increment();
+      this.cacheState = null;
+      final ActivationCache cache = this.activationCache;
+      if (cache != null && !flag) {
+        cache.invalidate();
+      }
     }
-    if (entity instanceof CyberNetOutputPin) {
-      return "O_" + entity.getUid();
+    this.lock = flag;
+  }
+
+  LockEpoch getLockEpoch() {
+    return this.lockEpoch;
+  }
+
+  public ActivationCache enableActivationCache(
+      final int maxEntries,
+      final CacheEviction eviction
+  ) {
+    final ActivationCache cache = ActivationCache.of(maxEntries, eviction);
+    this.cacheState = null;
+    this.activationCache = cache;
+    return cache;
+  }
+
+  public void disableActivationCache() {
+    this.activationCache = null;
+    this.cacheState = null;
+  }
+
+  public Optional<ActivationCache> findActivationCache() {
+    return Optional.ofNullable(this.activationCache);
+  }
+
+  public void enableTracing(final ActivationTracer tracer) {
+    this.tracer = requireNonNull(tracer);
+  }
+
+  public void disableTracing() {
+    this.tracer = null;
+  }
+
+  public Optional<ActivationTracer> findTracer() {
+    return Optional.ofNullable(this.tracer);
+  }
+
+  private List<CyberNeuron> findNeuronsDeep() {
+    final List<CyberNeuron> result = new ArrayList<>();
+    for (final CyberNetEntity entity : this.entities.keySet()) {
+      if (entity instanceof CyberNeuron) {
+        result.add((CyberNeuron) entity);
+      } else if (entity instanceof CyberNet) {
+        result.addAll(((CyberNet) entity).findNeuronsDeep());
+      }
     }
-    if (entity instanceof CyberNetInputPin) {
-      return "I_" + entity.getUid();
+    return result;
+  }
+
+  public void begin() {
+    final List<CyberNeuron> neurons = this.findNeuronsDeep();
+    for (final CyberNeuron neuron : neurons) {
+      if (neuron.isTransactionActive()) {
+        throw new IllegalStateException(
+            "Transaction is already active for neuron " + neuron.getUid());
+      }
+      neuron.assertNonLocked();
     }
-    if (entity instanceof CyberNet) {
-      return "M_" + entity.getUid();
+    for (final CyberNeuron neuron : neurons) {
+      neuron.begin();
     }
-    throw new IllegalArgumentException("Unexpected type: " + entity);
   }
 
-  private static String findDotAttributesForEntity(final CyberNetEntity entity) {
-    if (entity instanceof CyberNet) {
-      return "[color=blue;shape=octagon]";
-    } else if (entity instanceof CyberNeuron) {
-      return "[color=green;shape=oval]";
-    } else if (entity instanceof CyberNetInputPin) {
-      return "[color=red;shape=box]";
-    } else if (entity instanceof CyberNetOutputPin) {
-      return "[color=green;shape=box]";
-    } else {
-      return "[color=gray;shape=triangle]";
+  public void commit() {
+    for (final CyberNeuron neuron : this.findTransactionNeurons()) {
+      neuron.commit();
     }
   }
 
-  private static void addValueToResolved(
-      final Map<ResultEntity, Integer> map,
-      final ResultEntityCache resultEntityCache,
-      final HasOutput hasOutput,
-      final int[] outputs) {
-    for (int p = 0; p < hasOutput.getOutputSize(); p++) {
-      map.put(resultEntityCache.find(hasOutput, p), outputs[p]);
+  public void rollback() {
+    final List<CyberNeuron> neurons = this.findTransactionNeurons();
+    for (final CyberNeuron neuron : neurons) {
+      neuron.assertNonLocked();
+    }
+    for (final CyberNeuron neuron : neurons) {
+      neuron.rollback();
     }
   }
 
-  @Override
-  public boolean isLocked() {
-    return this.lock;
+  public boolean isTransactionActive() {
+    return this.findNeuronsDeep().stream().anyMatch(CyberNeuron::isTransactionActive);
   }
 
-  @Override
-  public void setLock(boolean flag) {
-    this.lock = flag;
+  private List<CyberNeuron> findTransactionNeurons() {
+    final List<CyberNeuron> result = this.findNeuronsDeep().stream()
+        .filter(CyberNeuron::isTransactionActive)
+        .collect(Collectors.toList());
+    if (result.isEmpty()) {
+      throw new IllegalStateException("There is no active transaction");
+    }
+    return result;
+  }
+
+  public CyberNetFootprint estimateFootprint() {
+    return CyberNetFootprint.of(this, Collections.newSetFromMap(new IdentityHashMap<>()));
+  }
+
+  public long getMemoryBudget() {
+    return this.memoryBudget;
+  }
+
+  /**
+   * Sets the byte budget charged by {@link #put(CyberNetEntity)} and links. The budget covers
+   * network structure only: entries already put are charged once, so later growth of sparse
+   * neuron tables and of nested networks is not counted against it.
+   */
+  public void setMemoryBudget(final long bytes) {
+    if (bytes <= 0L) {
+      throw new IllegalArgumentException("Memory budget must be positive one");
+    }
+    if (bytes < this.reservedBytes) {
+      throw new IllegalStateException(
+          format("Already reserved %d bytes, more than budget %d", this.reservedBytes, bytes));
+    }
+    this.memoryBudget = bytes;
+  }
+
+  public long getReservedBytes() {
+    return this.reservedBytes;
+  }
+
+  private void reserve(final long bytes) {
+    final long required = this.reservedBytes + bytes;
+    if (required > this.memoryBudget) {
+      throw new IllegalStateException(
+          format("Memory budget %d bytes would be exceeded, required %d", this.memoryBudget,
+              required));
+    }
+    this.reservedBytes = required;
+  }
+
+  boolean isLockedDeep() {
+    if (!this.lock) {
+      return false;
+    }
+    return this.entities.keySet().stream()
+        .allMatch(x -> {
+          if (x instanceof CyberNet) {
+            return ((CyberNet) x).isLockedDeep();
+          }
+          return !(x instanceof HasLock) || ((HasLock) x).isLocked();
+        });
+  }
+
+  int[] findInputRanges() {
+    return this.entities.keySet().stream()
+        .filter(CyberNetInputPin.class::isInstance)
+        .mapToInt(pin -> {
+          int range = InputPacker.UNBOUNDED;
+          for (final CyberLink link : this.entities.get(pin)) {
+            final int targetRange;
+            if (link.target() instanceof CyberNeuron) {
+              targetRange = ((CyberNeuron) link.target()).getRowLength();
+            } else if (link.target() instanceof CyberNet) {
+              targetRange = ((CyberNet) link.target()).findInputRanges()[link.targetIndex()];
+            } else {
+              targetRange = InputPacker.UNBOUNDED;
+            }
+            if (targetRange != InputPacker.UNBOUNDED
+                && (range == InputPacker.UNBOUNDED || targetRange < range)) {
+              range = targetRange;
+            }
+          }
+          return range;
+        })
+        .toArray();
   }
 
   public void put(final CyberNetEntity entity) {
@@ -85,7 +234,27 @@ public class CyberNet implements CyberNetEntity, HasOutput, HasLock, IsActivable
     if (this.entities.containsKey(entity)) {
       throw new IllegalStateException("Already presented in the network");
     }
+    this.reserve(CyberNetFootprint.ENTITY_ENTRY + CyberNetFootprint.TRACKING_ENTRY
+        + (entity instanceof HasOutput ? CyberNetFootprint.EMPTY_HASH_SET : 0L)
+        + CyberNetFootprint.estimateReserved(entity));
     this.entities.put(entity, entity instanceof HasOutput ? new HashSet<>() : Set.of());
+    this.linkStates.put(entity, new LinkState());
+    if (entity instanceof CyberNet) {
+      this.nestedNets.add((CyberNet) entity);
+      ((CyberNet) entity).lockEpoch.addParent(this.lockEpoch);
+    } else {
+      if (entity instanceof CyberNeuron) {
+        ((CyberNeuron) entity).getLockEpoch().addParent(this.lockEpoch);
+      }
+      if (isInputTracked(entity) && entity.getInputSize() > 0) {
+        this.entitiesWithFreeInputs++;
+      }
+      if (isOutputTracked(entity) && ((HasOutput) entity).getOutputSize() > 0) {
+        this.entitiesWithUnusedOutputs++;
+      }
+    }
+    this.executionPlan = null;
+    this.inputPacker = null;
     if (entity instanceof CyberNetInputPin) {
       this.inputCount++;
     }
@@ -122,12 +291,26 @@ public class CyberNet implements CyberNetEntity, HasOutput, HasLock, IsActivable
       throw new IllegalArgumentException("Input index is wrong: " + targetIndex);
     }
 
-    if (this.entities.entrySet().stream().flatMap(x -> x.getValue().stream())
-        .anyMatch(x -> x.target().equals(target) && x.targetIndex() == targetIndex)) {
+    final LinkState srcState = this.findLinkState(src);
+    final LinkState targetState = this.findLinkState(target);
+    if (targetState.inputs.get(targetIndex)) {
       throw new IllegalStateException("Input with index " + targetIndex + " is already linked");
     }
     final CyberLink link = new CyberLink(src, outputIndex, target, targetIndex);
+    this.reserve(CyberNetFootprint.LINK_ENTRY);
     this.entities.get(src).add(link);
+    targetState.inputs.set(targetIndex);
+    if (!(target instanceof CyberNet) && isInputTracked(target)
+        && targetState.inputs.cardinality() == target.getInputSize()) {
+      this.entitiesWithFreeInputs--;
+    }
+    srcState.outputs.set(outputIndex);
+    if (!(src instanceof CyberNet) && isOutputTracked(src)
+        && this.entities.get(src).size() == src.getOutputSize()) {
+      this.entitiesWithUnusedOutputs--;
+    }
+    this.executionPlan = null;
+    this.inputPacker = null;
     return link;
   }
 
@@ -155,58 +338,117 @@ public class CyberNet implements CyberNetEntity, HasOutput, HasLock, IsActivable
         findFirstFreeInputIndex(target));
   }
 
-  public <A extends CyberNetEntity & HasOutput> int findFirstPreferableOutputIndex(
-      final A a) {
-    if (!this.entities.containsKey(a)) {
+  private static boolean isInputTracked(final CyberNetEntity entity) {
+    return !(entity instanceof CyberNetInputPin);
+  }
+
+  private static boolean isOutputTracked(final CyberNetEntity entity) {
+    return entity instanceof HasOutput && !(entity instanceof IsTerminator);
+  }
+
+  private LinkState findLinkState(final HasUid entity) {
+    final LinkState result = this.linkStates.get(entity);
+    if (result == null) {
       throw new IllegalStateException("Argument is not among network entities");
     }
+    return result;
+  }
+
+  public <A extends CyberNetEntity & HasOutput> int findFirstPreferableOutputIndex(
+      final A a) {
+    final LinkState state = this.findLinkState(a);
     if (a.getOutputSize() == 1) {
       return 0;
     }
-    final Set<CyberLink> found = this.entities.get(a);
-    return IntStream.range(0, a.getOutputSize())
-        .filter(i -> found.stream().noneMatch(z -> z.sourceIndex() == i))
-        .findFirst()
-        .orElse(0);
+    final int freeIndex = state.outputs.nextClearBit(0);
+    return freeIndex < a.getOutputSize() ? freeIndex : 0;
   }
 
   public int findFirstFreeInputIndex(final CyberNetEntity input) {
-    if (!this.entities.containsKey(input)) {
-      throw new IllegalStateException("Argument is not among network entities");
+    final int freeIndex = this.findLinkState(input).inputs.nextClearBit(0);
+    return freeIndex < input.getInputSize() ? freeIndex : -1;
+  }
+
+  void linkBulk(
+      final List<? extends HasOutput> sources,
+      final List<? extends CyberNetEntity> targets,
+      final int[] sourceIndexes
+  ) {
+    this.assertNonLocked();
+    final LinkState[] sourceStates = new LinkState[sources.size()];
+    final int[] fanOut = new int[sources.size()];
+    for (final int sourceIndex : sourceIndexes) {
+      fanOut[sourceIndex]++;
     }
-    final BitSet bitSet = new BitSet(input.getInputSize());
-    this.entities.entrySet().stream()
-        .flatMap(x -> x.getValue().stream())
-        .filter(x -> x.target().equals(input))
-        .forEach(x -> bitSet.set(x.targetIndex()));
+    for (int i = 0; i < sourceStates.length; i++) {
+      sourceStates[i] = this.findLinkState(sources.get(i));
+    }
+    final LinkState[] targetStates = new LinkState[targets.size()];
+    for (int i = 0; i < targetStates.length; i++) {
+      targetStates[i] = this.findLinkState(targets.get(i));
+    }
+    this.reserve(sourceIndexes.length * CyberNetFootprint.LINK_ENTRY);
+    final List<Set<CyberLink>> sourceLinks = new ArrayList<>(sources.size());
+    for (int i = 0; i < sourceStates.length; i++) {
+      final HasOutput source = sources.get(i);
+      Set<CyberLink> links = this.entities.get(source);
+      if (links.isEmpty() && fanOut[i] > 0) {
+        links = new HashSet<>(fanOut[i] * 4 / 3 + 1);
+        this.entities.put((CyberNetEntity) source, links);
+      }
+      sourceLinks.add(links);
+    }
+    int position = 0;
+    for (int t = 0; t < targetStates.length; t++) {
+      final CyberNetEntity target = targets.get(t);
+      for (int i = 0; i < target.getInputSize(); i++) {
+        final int sourceIndex = sourceIndexes[position++];
+        sourceLinks.get(sourceIndex).add(new CyberLink(sources.get(sourceIndex), 0, target, i));
+        sourceStates[sourceIndex].outputs.set(0);
+      }
+      targetStates[t].inputs.set(0, target.getInputSize());
+    }
+    this.executionPlan = null;
+    this.inputPacker = null;
+    this.recountLinkStates();
+  }
 
-    final int freeIndex = bitSet.nextClearBit(0);
-    return freeIndex < input.getInputSize() ? freeIndex : -1;
+  private void recountLinkStates() {
+    int freeInputs = 0;
+    int unusedOutputs = 0;
+    for (final Map.Entry<CyberNetEntity, LinkState> e : this.linkStates.entrySet()) {
+      final CyberNetEntity entity = e.getKey();
+      if (entity instanceof CyberNet) {
+        continue;
+      }
+      if (isInputTracked(entity) && e.getValue().inputs.cardinality() < entity.getInputSize()) {
+        freeInputs++;
+      }
+      if (isOutputTracked(entity)
+          && this.entities.get(entity).size() < ((HasOutput) entity).getOutputSize()) {
+        unusedOutputs++;
+      }
+    }
+    this.entitiesWithFreeInputs = freeInputs;
+    this.entitiesWithUnusedOutputs = unusedOutputs;
   }
 
   @Override
   public CyberNetEntity makeCopy() {
     final CyberNet copyToReturn = new CyberNet();
 
-    final Map<Long, CyberNetEntity> mapOldIdToCopy = new HashMap<>();
+    final Map<HasUid, CyberNetEntity> mapOldToCopy = new IdentityHashMap<>(this.entities.size());
 
     this.entities.forEach((x, l) -> {
       var entityCopy = x.makeCopy();
       copyToReturn.put(entityCopy);
-      mapOldIdToCopy.put(x.getUid(), entityCopy);
+      mapOldToCopy.put(x, entityCopy);
     });
 
-    this.entities.keySet()
-        .forEach(x -> {
-          final CyberNetEntity copied = x.makeCopy();
-          mapOldIdToCopy.put(x.getUid(), copied);
-          copyToReturn.entities.put(copied, new HashSet<>());
-        });
-
     this.entities.forEach((key, value) -> {
-      final CyberNetEntity newEntity = requireNonNull(mapOldIdToCopy.get(key.getUid()));
+      final CyberNetEntity newEntity = requireNonNull(mapOldToCopy.get(key));
       for (final CyberLink link : value) {
-        final CyberNetEntity newTarget = requireNonNull(mapOldIdToCopy.get(link.target().getUid()));
+        final CyberNetEntity newTarget = requireNonNull(mapOldToCopy.get(link.target()));
         copyToReturn.link((CyberNetEntity & HasOutput) newEntity, link.sourceIndex(), newTarget,
             link.targetIndex());
       }
@@ -216,45 +458,51 @@ public class CyberNet implements CyberNetEntity, HasOutput, HasLock, IsActivable
     return copyToReturn;
   }
 
-  public Set<CyberNetEntity> findErrors() {
-    return this.entities.keySet().stream().filter(x -> !x.hasInternalErrors())
-        .collect(toUnmodifiableSet());
+  public List<CyberNetIssue> findErrors() {
+    final List<CyberNetIssue> result = new ArrayList<>();
+    for (final CyberNetEntity entity : this.entities.keySet()) {
+      final LinkState state = this.linkStates.get(entity);
+      if (entity.hasInternalErrors()) {
+        result.add(new CyberNetIssue(CyberNetIssue.Type.NESTED_ERRORS, entity, -1));
+      }
+      if (isInputTracked(entity)) {
+        for (int i = state.inputs.nextClearBit(0); i < entity.getInputSize();
+             i = state.inputs.nextClearBit(i + 1)) {
+          result.add(new CyberNetIssue(CyberNetIssue.Type.UNCONNECTED_INPUT, entity, i));
+        }
+      }
+      if (isOutputTracked(entity)
+          && this.entities.get(entity).size() < ((HasOutput) entity).getOutputSize()) {
+        final int outputSize = ((HasOutput) entity).getOutputSize();
+        for (int i = state.outputs.nextClearBit(0); i < outputSize;
+             i = state.outputs.nextClearBit(i + 1)) {
+          result.add(new CyberNetIssue(CyberNetIssue.Type.UNUSED_OUTPUT, entity, i));
+        }
+      }
+    }
+    return Collections.unmodifiableList(result);
   }
 
   public String makeDotDiagram() {
     final StringBuilder builder = new StringBuilder();
-    final String eol = "\n";
-
-    builder.append("digraph G {").append(eol)
-        .append("graph [splines=true]").append(eol)
-        .append("rankdir=LR;").append(eol);
-
-    final Map<HasUid, String> processedEntities = new HashMap<>();
-
-    this.entities.keySet().stream()
-        .forEach(x -> {
-          final String id = makeReadableId(x);
-          final String attributes = findDotAttributesForEntity(x);
-          builder.append('\"').append(id).append("\" ").append(attributes).append(';').append(eol);
-          processedEntities.put(x, id);
-        });
+    try {
+      this.export(GraphFormat.DOT, builder);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return builder.toString();
+  }
 
-    this.entities.values().stream().flatMap(Collection::stream)
-        .forEach(l -> {
-          final String idSource = processedEntities.get(l.source());
-          final String idTarget = processedEntities.get(l.target());
-          builder.append('\"').append(idSource).append("\" -> \"").append(idTarget)
-              .append("\" [fontsize=8")
-              .append(l.target().getInputSize() > 1 ? ";headlabel=\"" + l.targetIndex() + '\"' : "")
-              .append(
-                  l.source().getOutputSize() > 1 ? ";taillabel=\"" + l.sourceIndex() + '\"' : "")
-              .append("];")
-              .append(eol);
-        });
+  public void export(final GraphFormat format, final Appendable out) throws IOException {
+    CyberNetExporter.of(format).write(this, out);
+  }
 
-    builder.append('}');
+  Set<CyberNetEntity> getEntities() {
+    return Collections.unmodifiableSet(this.entities.keySet());
+  }
 
-    return builder.toString();
+  Set<CyberLink> getOutgoingLinks(final CyberNetEntity entity) {
+    return this.entities.getOrDefault(entity, Set.of());
   }
 
   @Override
@@ -284,16 +532,18 @@ public class CyberNet implements CyberNetEntity, HasOutput, HasLock, IsActivable
 
   @Override
   public boolean hasInternalErrors() {
-    return this.entities.entrySet()
-        .stream()
-        .anyMatch(e ->
-            e.getKey().hasInternalErrors()
-                || (!(e.getKey() instanceof CyberNetInputPin) &&
-                this.findFirstFreeInputIndex(e.getKey()) >= 0)
-                ||
-                (e.getKey() instanceof HasOutput && !(e.getKey() instanceof IsTerminator)
-                    && ((HasOutput) e.getKey()).getOutputSize() > e.getValue().size())
-        );
+    if (this.entitiesWithFreeInputs > 0 || this.entitiesWithUnusedOutputs > 0) {
+      return true;
+    }
+    for (final CyberNet nested : this.nestedNets) {
+      final LinkState state = this.linkStates.get(nested);
+      if (state.inputs.cardinality() < nested.getInputSize()
+          || this.entities.get(nested).size() < nested.getOutputSize()
+          || nested.hasInternalErrors()) {
+        return true;
+      }
+    }
+    return false;
   }
 
   public List<CyberLink> findOutgoingLinks(final HasOutput entity) {
@@ -313,14 +563,25 @@ public class CyberNet implements CyberNetEntity, HasOutput, HasLock, IsActivable
 
   public List<List<CyberLink>> findWholeChain(final HasInput entity) {
     final List<List<CyberLink>> result = new ArrayList<>();
-    List<CyberLink> found = this.findIncomingLinks(entity);
+    List<ChainStep> found = new ArrayList<>();
+    for (final CyberLink link : this.findIncomingLinks(entity)) {
+      found.add(new ChainStep(link, null));
+    }
 
     while (!found.isEmpty()) {
-      result.add(0, found);
-      List<CyberLink> newFound = new ArrayList<>();
-      for (final CyberLink link : found) {
-        if (link.source() instanceof HasInput) {
-          newFound.addAll(findIncomingLinks((HasInput) link.source()));
+      final List<CyberLink> level = new ArrayList<>(found.size());
+      for (final ChainStep step : found) {
+        level.add(step.link);
+      }
+      result.add(0, level);
+      final List<ChainStep> newFound = new ArrayList<>();
+      for (final ChainStep step : found) {
+        if (step.link.source() instanceof HasInput) {
+          for (final CyberLink incoming : findIncomingLinks((HasInput) step.link.source())) {
+            if (!step.isOnPath(incoming)) {
+              newFound.add(new ChainStep(incoming, step));
+            }
+          }
         }
       }
       found = newFound;
@@ -336,113 +597,358 @@ public class CyberNet implements CyberNetEntity, HasOutput, HasLock, IsActivable
           format("Wrong input length, detected %d but expected %d", inputs.length,
               this.inputCount));
     }
+    final ActivationTracer currentTracer = this.tracer;
+    if (currentTracer != null) {
+      final long activationId = currentTracer.sample();
+      if (activationId >= 0L) {
+        return this.findExecutionPlan().activate(inputs, currentTracer, activationId);
+      }
+    }
+    final ActivationCache cache = this.activationCache;
+    if (cache != null && this.lock) {
+      final CacheState state = this.findValidCacheState(cache);
+      if (state != null) {
+        return this.activateCached(cache, state, inputs);
+      }
+    }
+    return this.activateDirect(inputs);
+  }
 
-    final List<CyberNetOutputPin> allOutputs = this.entities.keySet().stream()
-        .filter(
-            CyberNetOutputPin.class::isInstance)
-        .map(CyberNetOutputPin.class::cast)
-        .collect(Collectors.toList());
-
-    if (allOutputs.size() != this.outputCount) {
-      throw new IllegalStateException(
-          format("Can't find output pins, detected %d output pins but expected %d",
-              allOutputs.size(),
-              this.outputCount));
+  public int[] activateOutputs(final int[] inputs, final int... outputIndexes) {
+    this.assertInputLength(inputs);
+    final ExecutionPlan plan = this.findExecutionPlan();
+    final ExecutionPlan cone;
+    if (outputIndexes.length == 1) {
+      this.assertOutputIndex(outputIndexes[0]);
+      cone = plan.findCone(outputIndexes[0]);
+    } else {
+      final BitSet mask = new BitSet(this.outputCount);
+      for (final int index : outputIndexes) {
+        this.assertOutputIndex(index);
+        mask.set(index);
+      }
+      cone = plan.findCone(mask);
+    }
+    final int[] values = cone.makeValues();
+    System.arraycopy(inputs, 0, values, 0, this.inputCount);
+    cone.execute(values, cone.makeScratch());
+    final int[] result = new int[outputIndexes.length];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = values[plan.getOutputSlot(outputIndexes[i])];
     }
+    return result;
+  }
 
-    final List<CyberNetInputPin> allInputs = this.entities.keySet().stream()
-        .filter(
-            CyberNetInputPin.class::isInstance)
-        .map(CyberNetInputPin.class::cast)
-        .collect(Collectors.toList());
+  public int[] activateOutputs(final int[] inputs, final BitSet outputMask) {
+    return this.activateOutputs(inputs, outputMask.stream().toArray());
+  }
 
-    if (allInputs.size() != this.inputCount) {
-      throw new IllegalStateException(
-          format("Can't find input pins, detected %d input pins but expected %d", allInputs.size(),
+  private void assertInputLength(final int[] inputs) {
+    if (inputs.length != this.inputCount) {
+      throw new IllegalArgumentException(
+          format("Wrong input length, detected %d but expected %d", inputs.length,
               this.inputCount));
     }
+  }
 
-    final ResultEntityCache resultEntityCache = new ResultEntityCache();
-    final Map<ResultEntity, Integer> resolved = new HashMap<>();
+  private void assertOutputIndex(final int index) {
+    if (!this.isOutputIndexValid(index)) {
+      throw new IllegalArgumentException("Output index is wrong: " + index);
+    }
+  }
 
-    for (int i = 0; i < inputs.length; i++) {
-      addValueToResolved(
-          resolved,
-          resultEntityCache,
-          allInputs.get(i),
-          new int[] {inputs[i]}
-      );
-    }
-
-    allOutputs.stream()
-        .flatMap(x -> this.findWholeChain(x).stream().flatMap(Collection::stream))
-        .forEach(link -> {
-          if (link.target() instanceof IsActivable) {
-            final IsActivable activable = (IsActivable) link.target();
-            final int[] calculatedInputs = this.findIncomingLinks(link.target()).stream()
-                .mapToInt(x -> Objects.requireNonNull(
-                    resolved.get(resultEntityCache.find(x.source(), x.sourceIndex()))))
-                .toArray();
-            addValueToResolved(resolved, resultEntityCache, (HasOutput) activable,
-                activable.activate(calculatedInputs));
-          }
-        });
+  private CacheState findValidCacheState(final ActivationCache cache) {
+    final CacheState current = this.cacheState;
+    final long epoch = this.lockEpoch.get();
+    if (current == null || current.epoch != epoch) {
+      cache.invalidate();
+      final CacheState result = new CacheState(epoch,
+          this.isLockedDeep() ? this.findInputPacker() : null);
+      this.cacheState = result;
+      return result.packer == null ? null : result;
+    }
+    return current.packer == null ? null : current;
+  }
+
+  private int[] activateCached(
+      final ActivationCache cache,
+      final CacheState state,
+      final int[] inputs
+  ) {
+    final InputPacker packer = state.packer;
+    final ActivationCache.Table cacheTable = cache.acquire(packer.getWords(), this.outputCount);
+    final long[] key = new long[packer.getWords()];
+    if (!packer.pack(inputs, 0, key)) {
+      return this.activateDirect(inputs);
+    }
+    final int[] result = new int[this.outputCount];
+    if (!cacheTable.lookup(key, result)) {
+      final int[] calculated = this.activateDirect(inputs);
+      cacheTable.store(key, calculated);
+      return calculated;
+    }
+    return result;
+  }
 
-    return allOutputs.stream().mapToInt(x -> resolved.get(resultEntityCache.find(x, 0))).toArray();
+  private int[] activateDirect(final int[] inputs) {
+    return this.findExecutionPlan().activate(inputs);
   }
 
-  private static class ResultEntityCache {
-    private final Map<HasOutput, Map<Integer, ResultEntity>> cache = new HashMap<>();
+  ExecutionPlan findExecutionPlan() {
+    ExecutionPlan result = this.executionPlan;
+    if (result == null) {
+      result = ExecutionPlan.of(this.entities.keySet(), this.entities.values());
+      if (result.getInputCount() != this.inputCount
+          || result.getOutputCount() != this.outputCount) {
+        throw new IllegalStateException(
+            format("Can't find pins, detected %d input and %d output pins but expected %d and %d",
+                result.getInputCount(), result.getOutputCount(), this.inputCount,
+                this.outputCount));
+      }
+      this.executionPlan = result;
+    }
+    return result;
+  }
 
-    public ResultEntity find(final HasOutput entity, final int index) {
-      final Map<Integer, ResultEntity> indexMap =
-          this.cache.computeIfAbsent(entity, f -> new HashMap<>());
-      return indexMap.computeIfAbsent(index, i -> new ResultEntity(entity, i));
+  private InputPacker findInputPacker() {
+    InputPacker result = this.inputPacker;
+    if (result == null) {
+      result = InputPacker.of(this.findInputRanges());
+      this.inputPacker = result;
     }
+    return result;
   }
 
-  private static final class ResultEntity {
-    private final HasOutput output;
-    private final int outPinIndex;
+  public int getPackedWords() {
+    return this.findInputPacker().getWords();
+  }
 
-    private ResultEntity(final HasOutput output, final int outPinIndex) {
-      this.output = output;
-      this.outPinIndex = outPinIndex;
+  public long[] pack(final int[] inputs) {
+    if (inputs.length != this.inputCount) {
+      throw new IllegalArgumentException(
+          format("Wrong input length, detected %d but expected %d", inputs.length,
+              this.inputCount));
     }
+    final InputPacker packer = this.findInputPacker();
+    final long[] result = new long[packer.getWords()];
+    if (!packer.pack(inputs, 0, result)) {
+      throw new IllegalArgumentException("Some input value is out of range");
+    }
+    return result;
+  }
 
-    public HasOutput output() {
-      return output;
+  public int[] activatePacked(final long[] packed) {
+    final InputPacker packer = this.findInputPacker();
+    if (packed.length < packer.getWords()) {
+      throw new IllegalArgumentException(
+          format("Wrong packed length, detected %d but expected %d", packed.length,
+              packer.getWords()));
     }
+    final int[] inputs = new int[this.inputCount];
+    packer.unpack(packed, inputs, 0);
+    this.assertInRange(inputs);
+    return this.activate(inputs);
+  }
 
-    public int outPinIndex() {
-      return outPinIndex;
+  public int[] activate(final byte[] inputs) {
+    if (inputs.length != this.inputCount) {
+      throw new IllegalArgumentException(
+          format("Wrong input length, detected %d but expected %d", inputs.length,
+              this.inputCount));
     }
+    final int[] widened = new int[inputs.length];
+    for (int i = 0; i < inputs.length; i++) {
+      widened[i] = inputs[i] & 0xFF;
+    }
+    this.assertInRange(widened);
+    return this.activate(widened);
+  }
 
-    @Override
-    public boolean equals(Object obj) {
-      if (obj == this) {
-        return true;
+  public int[] activate(final ByteBuffer inputs) {
+    if (inputs.remaining() < this.inputCount) {
+      throw new IllegalArgumentException(
+          format("Wrong input length, detected %d but expected %d", inputs.remaining(),
+              this.inputCount));
+    }
+    final int[] widened = new int[this.inputCount];
+    final int offset = inputs.position();
+    for (int i = 0; i < widened.length; i++) {
+      widened[i] = inputs.get(offset + i) & 0xFF;
+    }
+    this.assertInRange(widened);
+    return this.activate(widened);
+  }
+
+  private void assertInRange(final int[] maxValues) {
+    final InputPacker packer = this.findInputPacker();
+    for (int i = 0; i < maxValues.length; i++) {
+      if (!packer.isInRange(i, maxValues[i])) {
+        throw new IllegalArgumentException(
+            format("Input value %d is out of range: %d", i, maxValues[i]));
+      }
+    }
+  }
+
+  private void assertInRange(final byte[] samples, final int offset, final int sampleCount) {
+    final int[] maxValues = new int[this.inputCount];
+    int position = offset;
+    for (int s = 0; s < sampleCount; s++) {
+      for (int i = 0; i < maxValues.length; i++) {
+        maxValues[i] = Math.max(maxValues[i], samples[position++] & 0xFF);
       }
-      if (obj == null || obj.getClass() != this.getClass()) {
-        return false;
+    }
+    this.assertInRange(maxValues);
+  }
+
+  private void assertInRange(final ByteBuffer samples, final int offset, final int sampleCount) {
+    final int[] maxValues = new int[this.inputCount];
+    int position = offset;
+    for (int s = 0; s < sampleCount; s++) {
+      for (int i = 0; i < maxValues.length; i++) {
+        maxValues[i] = Math.max(maxValues[i], samples.get(position++) & 0xFF);
       }
-      var that = (ResultEntity) obj;
-      return Objects.equals(this.output, that.output) &&
-          this.outPinIndex == that.outPinIndex;
     }
+    this.assertInRange(maxValues);
+  }
+
+  private void execute(final ExecutionPlan plan, final int[] values, final int[] scratch) {
+    final ActivationTracer currentTracer = this.tracer;
+    final long activationId = currentTracer == null ? -1L : currentTracer.sample();
+    if (activationId < 0L) {
+      plan.execute(values, scratch);
+    } else {
+      plan.execute(values, scratch, currentTracer, activationId);
+    }
+  }
+
+  public int[] activateBatch(final byte[] samples, final int sampleCount) {
+    if (sampleCount < 0 || (long) sampleCount * this.inputCount > samples.length) {
+      throw new IllegalArgumentException(
+          format("Wrong batch length, detected %d but expected %d", samples.length,
+              (long) sampleCount * this.inputCount));
+    }
+    this.assertInRange(samples, 0, sampleCount);
+    final ExecutionPlan plan = this.findExecutionPlan();
+    final int[] values = plan.makeValues();
+    final int[] scratch = plan.makeScratch();
+    final int[] result = new int[sampleCount * this.outputCount];
+    int offset = 0;
+    for (int s = 0; s < sampleCount; s++) {
+      for (int i = 0; i < this.inputCount; i++) {
+        values[i] = samples[offset++] & 0xFF;
+      }
+      this.execute(plan, values, scratch);
+      plan.readOutputs(values, result, s * this.outputCount);
+    }
+    return result;
+  }
+
+  public int[] activateBatch(final ByteBuffer samples) {
+    if (this.inputCount == 0 || samples.remaining() % this.inputCount != 0) {
+      throw new IllegalArgumentException(
+          format("Buffer contains %d bytes, it is not multiple of input size %d",
+              samples.remaining(), this.inputCount));
+    }
+    final int sampleCount = samples.remaining() / this.inputCount;
+    this.assertInRange(samples, samples.position(), sampleCount);
+    final ExecutionPlan plan = this.findExecutionPlan();
+    final int[] values = plan.makeValues();
+    final int[] scratch = plan.makeScratch();
+    final int[] result = new int[sampleCount * this.outputCount];
+    int offset = samples.position();
+    for (int s = 0; s < sampleCount; s++) {
+      for (int i = 0; i < this.inputCount; i++) {
+        values[i] = samples.get(offset++) & 0xFF;
+      }
+      this.execute(plan, values, scratch);
+      plan.readOutputs(values, result, s * this.outputCount);
+    }
+    return result;
+  }
+
+  /**
+   * Activates the network for inputs which are zero except the listed ones. If an index is listed
+   * more than once, the last value wins. Values must fit the row length of every consuming neuron.
+   */
+  public int[] activateSparse(final int[] indexes, final int[] values, final int count) {
+    if (count < 0 || count > indexes.length || count > values.length) {
+      throw new IllegalArgumentException("Wrong number of sparse inputs: " + count);
+    }
+    return this.findExecutionPlan().activateSparse(indexes, values, count);
+  }
+
+  public IncrementalCyberNetEvaluator makeIncrementalEvaluator(final int[] initialInputs) {
+    if (!this.lock) {
+      throw new IllegalStateException("Only locked network can be evaluated incrementally");
+    }
+    return IncrementalCyberNetEvaluator.of(this, initialInputs);
+  }
+
+  public Optional<TabulatedCyberNet> tabulate(final long memoryBudgetBytes) {
+    if (!this.isLockedDeep()) {
+      throw new IllegalStateException(
+          "Only locked network with locked entities can be tabulated");
+    }
+    return TabulatedCyberNet.tabulate(this.findExecutionPlan(), this.findInputRanges(),
+        memoryBudgetBytes);
+  }
 
-    @Override
-    public int hashCode() {
-      return Objects.hash(output, outPinIndex);
+  public RecurrentCyberNet makeRecurrent() {
+    if (!this.isLockedDeep()) {
+      throw new IllegalStateException(
+          "Only locked network with locked entities can be run recurrently");
     }
+    return RecurrentCyberNet.of(this);
+  }
 
-    @Override
-    public String toString() {
-      return "ResultEntity[" +
-          "output=" + output + ", " +
-          "outPinIndex=" + outPinIndex + ']';
+  public BitSlicedNet makeBitSliced() {
+    if (!this.isLockedDeep()) {
+      throw new IllegalStateException(
+          "Only locked network with locked entities can be bit-sliced");
     }
+    return BitSlicedNet.of(this.findExecutionPlan());
+  }
 
+  public CyberNetPartition partition(final int shardCount, final double balanceTolerance) {
+    if (!this.isLockedDeep()) {
+      throw new IllegalStateException(
+          "Only locked network with locked entities can be partitioned");
+    }
+    return CyberNetPartition.of(this.findExecutionPlan(), shardCount, balanceTolerance);
+  }
+
+  private static final class LinkState {
+    private final BitSet inputs = new BitSet();
+    private final BitSet outputs = new BitSet();
+  }
+
+  private static final class ChainStep {
+    private final CyberLink link;
+    private final ChainStep next;
+
+    private ChainStep(final CyberLink link, final ChainStep next) {
+      this.link = link;
+      this.next = next;
+    }
+
+    private boolean isOnPath(final CyberLink link) {
+      for (ChainStep step = this; step != null; step = step.next) {
+        if (step.link.equals(link)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static final class CacheState {
+    private final long epoch;
+    private final InputPacker packer;
+
+    private CacheState(final long epoch, final InputPacker packer) {
+      this.epoch = epoch;
+      this.packer = packer;
+    }
   }
 
 }
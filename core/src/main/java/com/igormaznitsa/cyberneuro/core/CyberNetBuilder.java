@@ -0,0 +1,116 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CyberNetBuilder {
+  private final int inputCount;
+  private final List<Layer> layers = new ArrayList<>();
+
+  private CyberNetBuilder(final int inputCount) {
+    this.inputCount = inputCount;
+  }
+
+  public static CyberNetBuilder withInputs(final int inputCount) {
+    if (inputCount <= 0) {
+      throw new IllegalArgumentException("Number of inputs must be positive one");
+    }
+    return new CyberNetBuilder(inputCount);
+  }
+
+  public CyberNetBuilder addLayer(
+      final int neuronCount,
+      final int inputSize,
+      final int maxValue,
+      final FanIn fanIn
+  ) {
+    if (neuronCount <= 0) {
+      throw new IllegalArgumentException("Number of neurons must be positive one");
+    }
+    if (inputSize <= 0) {
+      throw new IllegalArgumentException("Number of inputs must be positive one");
+    }
+    if (maxValue < 0) {
+      throw new IllegalArgumentException("Max value must not be negative one");
+    }
+    this.layers.add(new Layer(neuronCount, inputSize, maxValue, requireNonNull(fanIn)));
+    return this;
+  }
+
+  public CyberNet build() {
+    if (this.layers.isEmpty()) {
+      throw new IllegalStateException("At least one layer must be defined");
+    }
+    final int[][] connections = new int[this.layers.size()][];
+    int sourceCount = this.inputCount;
+    for (int l = 0; l < this.layers.size(); l++) {
+      final Layer layer = this.layers.get(l);
+      final long linkCount = (long) layer.neuronCount * layer.inputSize;
+      if (linkCount > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Too many links in layer " + l);
+      }
+      final int[] sourceIndexes = new int[(int) linkCount];
+      layer.fanIn.connect(sourceCount, layer.neuronCount, layer.inputSize, sourceIndexes);
+      for (int i = 0; i < sourceIndexes.length; i++) {
+        if (sourceIndexes[i] < 0 || sourceIndexes[i] >= sourceCount) {
+          throw new IllegalStateException(
+              format("Layer %d refers to wrong source %d at position %d", l, sourceIndexes[i],
+                  i));
+        }
+      }
+      connections[l] = sourceIndexes;
+      sourceCount = layer.neuronCount;
+    }
+
+    final CyberNet result = new CyberNet();
+    List<CyberNetEntity> sources = new ArrayList<>(this.inputCount);
+    for (int i = 0; i < this.inputCount; i++) {
+      sources.add(result.addInputPin());
+    }
+    for (int l = 0; l < this.layers.size(); l++) {
+      final Layer layer = this.layers.get(l);
+      final List<CyberNetEntity> neurons = new ArrayList<>(layer.neuronCount);
+      for (int n = 0; n < layer.neuronCount; n++) {
+        final CyberNeuron neuron = CyberNeuron.of(layer.inputSize, layer.maxValue);
+        result.put(neuron);
+        neurons.add(neuron);
+      }
+      result.linkBulk(castSources(sources), neurons, connections[l]);
+      sources = neurons;
+    }
+    final List<CyberNetEntity> outputs = new ArrayList<>(sources.size());
+    final int[] identity = new int[sources.size()];
+    for (int i = 0; i < identity.length; i++) {
+      outputs.add(result.addOutput());
+      identity[i] = i;
+    }
+    result.linkBulk(castSources(sources), outputs, identity);
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<HasOutput> castSources(final List<CyberNetEntity> sources) {
+    return (List<HasOutput>) (List<?>) sources;
+  }
+
+  private static final class Layer {
+    private final int neuronCount;
+    private final int inputSize;
+    private final int maxValue;
+    private final FanIn fanIn;
+
+    private Layer(
+        final int neuronCount,
+        final int inputSize,
+        final int maxValue,
+        final FanIn fanIn) {
+      this.neuronCount = neuronCount;
+      this.inputSize = inputSize;
+      this.maxValue = maxValue;
+      this.fanIn = fanIn;
+    }
+  }
+}
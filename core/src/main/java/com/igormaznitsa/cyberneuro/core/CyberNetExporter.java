@@ -0,0 +1,245 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public final class CyberNetExporter {
+  private static final String EOL = "\n";
+
+  private final GraphFormat format;
+  private final boolean nestedClusters;
+  private final CyberNetEntity center;
+  private final int depth;
+
+  private CyberNetExporter(
+      final GraphFormat format,
+      final boolean nestedClusters,
+      final CyberNetEntity center,
+      final int depth) {
+    this.format = requireNonNull(format);
+    this.nestedClusters = nestedClusters;
+    this.center = center;
+    this.depth = depth;
+  }
+
+  public static CyberNetExporter of(final GraphFormat format) {
+    return new CyberNetExporter(format, false, null, -1);
+  }
+
+  static String makeReadableId(final HasUid entity) {
+    if (entity instanceof CyberNeuron) {
+      return "N_" + entity.getUid();
+    }
+    if (entity instanceof CyberNetOutputPin) {
+      return "O_" + entity.getUid();
+    }
+    if (entity instanceof CyberNetInputPin) {
+      return "I_" + entity.getUid();
+    }
+    if (entity instanceof CyberNet) {
+      return "M_" + entity.getUid();
+    }
+    throw new IllegalArgumentException("Unexpected type: " + entity);
+  }
+
+  private static String findDotAttributesForEntity(final CyberNetEntity entity) {
+    if (entity instanceof CyberNet) {
+      return "[color=blue;shape=octagon]";
+    } else if (entity instanceof CyberNeuron) {
+      return "[color=green;shape=oval]";
+    } else if (entity instanceof CyberNetInputPin) {
+      return "[color=red;shape=box]";
+    } else if (entity instanceof CyberNetOutputPin) {
+      return "[color=green;shape=box]";
+    } else {
+      return "[color=gray;shape=triangle]";
+    }
+  }
+
+  private static PinIndex findPinIndex(
+      final Map<CyberNet, PinIndex> pinIndexes,
+      final CyberNet net) {
+    PinIndex result = pinIndexes.get(net);
+    if (result == null) {
+      result = new PinIndex(net);
+      pinIndexes.put(net, result);
+    }
+    return result;
+  }
+
+  public CyberNetExporter withNestedClusters(final boolean flag) {
+    return new CyberNetExporter(this.format, flag, this.center, this.depth);
+  }
+
+  public CyberNetExporter around(final CyberNetEntity entity, final int maxDepth) {
+    if (maxDepth < 0) {
+      throw new IllegalArgumentException("Depth must not be negative one");
+    }
+    return new CyberNetExporter(this.format, this.nestedClusters, requireNonNull(entity),
+        maxDepth);
+  }
+
+  public void write(final CyberNet net, final Appendable out) throws IOException {
+    final Set<CyberNetEntity> selected = this.center == null ? null : this.findSelected(net);
+    final Map<CyberNet, PinIndex> pinIndexes = new IdentityHashMap<>();
+    if (this.format == GraphFormat.DOT) {
+      out.append("digraph G {").append(EOL)
+          .append("graph [splines=true]").append(EOL)
+          .append("rankdir=LR;").append(EOL);
+      this.writeDotBody(net, selected, pinIndexes, out);
+      out.append('}');
+    } else {
+      this.writeEdgeList(net, selected, pinIndexes, out);
+    }
+  }
+
+  private Set<CyberNetEntity> findSelected(final CyberNet net) {
+    if (!net.getEntities().contains(this.center)) {
+      throw new IllegalArgumentException("Entity is not among network entities");
+    }
+    final Set<CyberNetEntity> selected = new HashSet<>();
+    selected.add(this.center);
+    Set<CyberNetEntity> frontier = Set.of(this.center);
+    for (int level = 0; level < this.depth && !frontier.isEmpty(); level++) {
+      final Set<CyberNetEntity> next = new HashSet<>();
+      for (final CyberNetEntity entity : net.getEntities()) {
+        for (final CyberLink link : net.getOutgoingLinks(entity)) {
+          final CyberNetEntity source = (CyberNetEntity) link.source();
+          final CyberNetEntity target = (CyberNetEntity) link.target();
+          if (frontier.contains(source) && selected.add(target)) {
+            next.add(target);
+          }
+          if (frontier.contains(target) && selected.add(source)) {
+            next.add(source);
+          }
+        }
+      }
+      frontier = next;
+    }
+    return selected;
+  }
+
+  private boolean isSelected(final Set<CyberNetEntity> selected, final CyberLink link) {
+    return selected == null
+        || (selected.contains((CyberNetEntity) link.source())
+        && selected.contains((CyberNetEntity) link.target()));
+  }
+
+  private HasUid resolveSource(final CyberLink link, final Map<CyberNet, PinIndex> pinIndexes) {
+    if (this.nestedClusters && link.source() instanceof CyberNet) {
+      return findPinIndex(pinIndexes, (CyberNet) link.source()).findOutput(link.sourceIndex());
+    }
+    return link.source();
+  }
+
+  private HasUid resolveTarget(final CyberLink link, final Map<CyberNet, PinIndex> pinIndexes) {
+    if (this.nestedClusters && link.target() instanceof CyberNet) {
+      return findPinIndex(pinIndexes, (CyberNet) link.target()).findInput(link.targetIndex());
+    }
+    return link.target();
+  }
+
+  private void writeDotBody(
+      final CyberNet net,
+      final Set<CyberNetEntity> selected,
+      final Map<CyberNet, PinIndex> pinIndexes,
+      final Appendable out) throws IOException {
+    for (final CyberNetEntity entity : net.getEntities()) {
+      if (selected != null && !selected.contains(entity)) {
+        continue;
+      }
+      final String id = makeReadableId(entity);
+      if (this.nestedClusters && entity instanceof CyberNet) {
+        out.append("subgraph \"cluster_").append(id).append("\" {").append(EOL)
+            .append("label=\"").append(id).append("\";").append(EOL);
+        this.writeDotBody((CyberNet) entity, null, pinIndexes, out);
+        out.append('}').append(EOL);
+      } else {
+        out.append('\"').append(id).append("\" ").append(findDotAttributesForEntity(entity))
+            .append(';').append(EOL);
+      }
+    }
+
+    for (final CyberNetEntity entity : net.getEntities()) {
+      for (final CyberLink link : net.getOutgoingLinks(entity)) {
+        if (!this.isSelected(selected, link)) {
+          continue;
+        }
+        out.append('\"').append(makeReadableId(this.resolveSource(link, pinIndexes)))
+            .append("\" -> \"").append(makeReadableId(this.resolveTarget(link, pinIndexes)))
+            .append("\" [fontsize=8");
+        if (link.target().getInputSize() > 1) {
+          out.append(";headlabel=\"").append(Integer.toString(link.targetIndex())).append('\"');
+        }
+        if (link.source().getOutputSize() > 1) {
+          out.append(";taillabel=\"").append(Integer.toString(link.sourceIndex())).append('\"');
+        }
+        out.append("];").append(EOL);
+      }
+    }
+  }
+
+  private void writeEdgeList(
+      final CyberNet net,
+      final Set<CyberNetEntity> selected,
+      final Map<CyberNet, PinIndex> pinIndexes,
+      final Appendable out) throws IOException {
+    for (final CyberNetEntity entity : net.getEntities()) {
+      if (this.nestedClusters && entity instanceof CyberNet
+          && (selected == null || selected.contains(entity))) {
+        this.writeEdgeList((CyberNet) entity, null, pinIndexes, out);
+      }
+      for (final CyberLink link : net.getOutgoingLinks(entity)) {
+        if (!this.isSelected(selected, link)) {
+          continue;
+        }
+        out.append(makeReadableId(this.resolveSource(link, pinIndexes))).append(' ')
+            .append(Integer.toString(link.sourceIndex())).append(' ')
+            .append(makeReadableId(this.resolveTarget(link, pinIndexes))).append(' ')
+            .append(Integer.toString(link.targetIndex())).append(EOL);
+      }
+    }
+  }
+
+  private static final class PinIndex {
+    private final CyberNet net;
+    private final HasUid[] inputs;
+    private final HasUid[] outputs;
+
+    private PinIndex(final CyberNet net) {
+      this.net = net;
+      this.inputs = new HasUid[net.getInputSize()];
+      this.outputs = new HasUid[net.getOutputSize()];
+      int inputCounter = 0;
+      int outputCounter = 0;
+      for (final CyberNetEntity entity : net.getEntities()) {
+        if (entity instanceof CyberNetInputPin && inputCounter < this.inputs.length) {
+          this.inputs[inputCounter++] = entity;
+        } else if (entity instanceof CyberNetOutputPin && outputCounter < this.outputs.length) {
+          this.outputs[outputCounter++] = entity;
+        }
+      }
+    }
+
+    private HasUid find(final HasUid[] pins, final int index) {
+      if (index < 0 || index >= pins.length || pins[index] == null) {
+        throw new IllegalStateException(
+            "Can't find pin " + index + " in " + makeReadableId(this.net));
+      }
+      return pins[index];
+    }
+
+    private HasUid findInput(final int index) {
+      return this.find(this.inputs, index);
+    }
+
+    private HasUid findOutput(final int index) {
+      return this.find(this.outputs, index);
+    }
+  }
+}
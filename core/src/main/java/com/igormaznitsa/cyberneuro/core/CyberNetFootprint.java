@@ -0,0 +1,154 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public final class CyberNetFootprint {
+  static final int OBJECT_HEADER = 12;
+  static final int REFERENCE = 4;
+  static final int ARRAY_HEADER = 16;
+  static final long NET_OBJECT = align(OBJECT_HEADER + 4 * Integer.BYTES + Long.BYTES
+      + 1 + 10 * REFERENCE);
+  static final long NEURON_OBJECT = align(OBJECT_HEADER + 3 * Integer.BYTES + Long.BYTES
+      + 2 + 7 * REFERENCE);
+  static final long PIN_OBJECT = align(OBJECT_HEADER + Long.BYTES);
+  static final long OTHER_OBJECT = align(OBJECT_HEADER + Long.BYTES);
+  static final long LINK_OBJECT = align(OBJECT_HEADER + 2 * REFERENCE + 2 * Integer.BYTES);
+  static final long HASH_NODE = align(OBJECT_HEADER + Integer.BYTES + 3 * REFERENCE);
+  static final long LINKED_HASH_NODE = align(HASH_NODE + 2 * REFERENCE);
+  static final long HASH_SLOT = 8L;
+  static final long EMPTY_HASH_SET = align(OBJECT_HEADER + REFERENCE)
+      + align(OBJECT_HEADER + 4 * Integer.BYTES + 4 * REFERENCE)
+      + ARRAY_HEADER + 16L * REFERENCE;
+  static final long LINK_STATE = align(OBJECT_HEADER + 2 * REFERENCE)
+      + 2 * (align(OBJECT_HEADER + 2 * Integer.BYTES + 1 + REFERENCE)
+      + align(ARRAY_HEADER + Long.BYTES));
+  static final long ENTITY_ENTRY = LINKED_HASH_NODE + HASH_SLOT;
+  static final long TRACKING_ENTRY = HASH_NODE + HASH_SLOT + LINK_STATE;
+  static final long LINK_ENTRY = LINK_OBJECT + HASH_NODE + HASH_SLOT;
+
+  private final long uid;
+  private final Map<FootprintCategory, Long> categories;
+  private final Map<Long, Long> neuronBytes;
+  private final Map<Long, CyberNetFootprint> nestedFootprints;
+  private final long totalBytes;
+
+  private CyberNetFootprint(
+      final long uid,
+      final Map<FootprintCategory, Long> categories,
+      final Map<Long, Long> neuronBytes,
+      final Map<Long, CyberNetFootprint> nestedFootprints) {
+    this.uid = uid;
+    this.categories = Collections.unmodifiableMap(categories);
+    this.neuronBytes = Collections.unmodifiableMap(neuronBytes);
+    this.nestedFootprints = Collections.unmodifiableMap(nestedFootprints);
+    this.totalBytes = categories.values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  static long align(final long bytes) {
+    return (bytes + 7L) & ~7L;
+  }
+
+  static long arrayBytes(final long length, final int elementBytes) {
+    return align(ARRAY_HEADER + length * elementBytes);
+  }
+
+  static long estimateReserved(final CyberNetEntity entity) {
+    if (entity instanceof CyberNet) {
+      return ((CyberNet) entity).getReservedBytes();
+    }
+    if (entity instanceof CyberNeuron) {
+      final CyberNeuron neuron = (CyberNeuron) entity;
+      final long table;
+      if (neuron.getTableLayout().isSparse()) {
+        final byte[] shared = neuron.findSharedTable();
+        table = neuron.getOwnedTableBytes() + (shared == null ? 0L : shared.length);
+      } else {
+        table = (long) neuron.getInputSize()
+            * ((neuron.getRowLength() + neuron.getTableLayout().getBucketWidth() - 1)
+            / neuron.getTableLayout().getBucketWidth());
+      }
+      return NEURON_OBJECT + arrayBytes(table, 1)
+          + arrayBytes((neuron.getInputSize() + 1) * 2L, Integer.BYTES);
+    }
+    return entity instanceof CyberNetInputPin || entity instanceof CyberNetOutputPin
+        ? PIN_OBJECT : OTHER_OBJECT;
+  }
+
+  static CyberNetFootprint of(final CyberNet net, final Set<byte[]> countedSharedTables) {
+    final Map<FootprintCategory, Long> categories = new EnumMap<>(FootprintCategory.class);
+    for (final FootprintCategory category : FootprintCategory.values()) {
+      categories.put(category, 0L);
+    }
+    final Map<Long, Long> neuronBytes = new LinkedHashMap<>();
+    final Map<Long, CyberNetFootprint> nested = new LinkedHashMap<>();
+    categories.merge(FootprintCategory.ENTITY_INDEX, NET_OBJECT, Long::sum);
+    for (final CyberNetEntity entity : net.getEntities()) {
+      categories.merge(FootprintCategory.ENTITY_INDEX, ENTITY_ENTRY, Long::sum);
+      categories.merge(FootprintCategory.LINK_TRACKING, TRACKING_ENTRY, Long::sum);
+      final Set<CyberLink> links = net.getOutgoingLinks(entity);
+      if (entity instanceof HasOutput) {
+        categories.merge(FootprintCategory.LINK_SETS,
+            EMPTY_HASH_SET + links.size() * (HASH_NODE + HASH_SLOT), Long::sum);
+        categories.merge(FootprintCategory.LINKS, links.size() * LINK_OBJECT, Long::sum);
+      }
+      if (entity instanceof CyberNet) {
+        final CyberNetFootprint footprint = of((CyberNet) entity, countedSharedTables);
+        nested.put(entity.getUid(), footprint);
+        categories.merge(FootprintCategory.NESTED_NETS, footprint.getTotalBytes(), Long::sum);
+      } else if (entity instanceof CyberNeuron) {
+        final CyberNeuron neuron = (CyberNeuron) entity;
+        final long owned = neuron.getOwnedTableBytes();
+        final long table = owned == 0L ? 0L : align(ARRAY_HEADER + owned);
+        final long bounds = neuron.isLocked()
+            ? arrayBytes((neuron.getInputSize() + 1) * 2L, Integer.BYTES) : 0L;
+        categories.merge(FootprintCategory.NEURONS, NEURON_OBJECT + bounds, Long::sum);
+        categories.merge(FootprintCategory.NEURON_TABLES, table, Long::sum);
+        final byte[] shared = neuron.findSharedTable();
+        if (shared != null && countedSharedTables.add(shared)) {
+          categories.merge(FootprintCategory.SHARED_TABLES, arrayBytes(shared.length, 1),
+              Long::sum);
+        }
+        neuronBytes.put(entity.getUid(), NEURON_OBJECT + bounds + table);
+      } else if (entity instanceof CyberNetInputPin || entity instanceof CyberNetOutputPin) {
+        categories.merge(FootprintCategory.PINS, PIN_OBJECT, Long::sum);
+      } else {
+        categories.merge(FootprintCategory.OTHER_ENTITIES, OTHER_OBJECT, Long::sum);
+      }
+    }
+    return new CyberNetFootprint(net.getUid(), categories, neuronBytes, nested);
+  }
+
+  public long getUid() {
+    return this.uid;
+  }
+
+  public long getTotalBytes() {
+    return this.totalBytes;
+  }
+
+  public long getBytes(final FootprintCategory category) {
+    return this.categories.get(category);
+  }
+
+  public Map<FootprintCategory, Long> getCategories() {
+    return this.categories;
+  }
+
+  public Map<Long, Long> getNeuronBytes() {
+    return this.neuronBytes;
+  }
+
+  public Map<Long, CyberNetFootprint> getNestedFootprints() {
+    return this.nestedFootprints;
+  }
+
+  @Override
+  public String toString() {
+    return "CyberNetFootprint: [uid=" + this.uid + ", total=" + this.totalBytes + ", "
+        + this.categories + ']';
+  }
+}
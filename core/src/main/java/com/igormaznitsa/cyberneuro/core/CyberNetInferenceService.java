@@ -0,0 +1,199 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class CyberNetInferenceService implements AutoCloseable {
+  private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50L);
+
+  private final ExecutionPlan plan;
+  private final int maxBatchSize;
+  private final long maxWaitNanos;
+  private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+  private final Thread[] workers;
+  private final LongAdder batchCounter = new LongAdder();
+  private final LongAdder sampleCounter = new LongAdder();
+  private final LongAccumulator largestBatch = new LongAccumulator(Math::max, 0L);
+  private volatile boolean closed;
+
+  private CyberNetInferenceService(
+      final ExecutionPlan plan,
+      final int maxBatchSize,
+      final Duration maxWait,
+      final int workers) {
+    this.plan = plan;
+    this.maxBatchSize = maxBatchSize;
+    this.maxWaitNanos = maxWait.toNanos();
+    this.workers = new Thread[workers];
+    for (int i = 0; i < workers; i++) {
+      this.workers[i] = new Thread(this::workerLoop, "cyber-inference-" + i);
+      this.workers[i].setDaemon(true);
+    }
+  }
+
+  public static CyberNetInferenceService of(
+      final CyberNet net,
+      final int maxBatchSize,
+      final Duration maxWait,
+      final int workers) {
+    if (!net.isLockedDeep()) {
+      throw new IllegalStateException("Only locked network with locked entities can be served");
+    }
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("Max batch size must be positive one");
+    }
+    if (maxWait.isNegative()) {
+      throw new IllegalArgumentException("Max wait must not be negative one");
+    }
+    if (workers <= 0) {
+      throw new IllegalArgumentException("Number of workers must be positive one");
+    }
+    final CyberNetInferenceService result =
+        new CyberNetInferenceService(net.findExecutionPlan(), maxBatchSize,
+            requireNonNull(maxWait), workers);
+    for (final Thread worker : result.workers) {
+      worker.start();
+    }
+    return result;
+  }
+
+  public CompletableFuture<int[]> submit(final int[] inputs) {
+    final CompletableFuture<int[]> result = new CompletableFuture<>();
+    if (inputs.length != this.plan.getInputCount()) {
+      result.completeExceptionally(new IllegalArgumentException(
+          format("Wrong input length, detected %d but expected %d", inputs.length,
+              this.plan.getInputCount())));
+      return result;
+    }
+    if (this.closed) {
+      result.completeExceptionally(new IllegalStateException("Service is closed"));
+      return result;
+    }
+    final Request request = new Request(inputs.clone(), result);
+    this.queue.add(request);
+    if (this.closed && this.queue.remove(request)) {
+      result.completeExceptionally(new IllegalStateException("Service is closed"));
+    }
+    return result;
+  }
+
+  public int getQueueDepth() {
+    return this.queue.size();
+  }
+
+  public long getBatchCount() {
+    return this.batchCounter.sum();
+  }
+
+  public long getProcessedCount() {
+    return this.sampleCounter.sum();
+  }
+
+  public long getLargestBatchSize() {
+    return this.largestBatch.get();
+  }
+
+  public double getAverageBatchSize() {
+    final long batches = this.batchCounter.sum();
+    return batches == 0L ? 0.0d : (double) this.sampleCounter.sum() / batches;
+  }
+
+  private void workerLoop() {
+    final int[] values = this.plan.makeValues();
+    final int[] scratch = this.plan.makeScratch();
+    final List<Request> batch = new ArrayList<>(this.maxBatchSize);
+    try {
+      while (!this.closed || !this.queue.isEmpty()) {
+        final Request first = this.queue.poll(IDLE_POLL_NANOS, TimeUnit.NANOSECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        final long deadline = System.nanoTime() + this.maxWaitNanos;
+        while (batch.size() < this.maxBatchSize) {
+          if (this.queue.drainTo(batch, this.maxBatchSize - batch.size()) > 0) {
+            continue;
+          }
+          final long remaining = deadline - System.nanoTime();
+          if (remaining <= 0L) {
+            break;
+          }
+          final Request next = this.queue.poll(remaining, TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        this.execute(batch, values, scratch);
+        batch.clear();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      for (final Request request : batch) {
+        request.future.completeExceptionally(ex);
+      }
+    }
+  }
+
+  private void execute(final List<Request> batch, final int[] values, final int[] scratch) {
+    this.batchCounter.increment();
+    this.sampleCounter.add(batch.size());
+    this.largestBatch.accumulate(batch.size());
+    for (final Request request : batch) {
+      try {
+        System.arraycopy(request.inputs, 0, values, 0, request.inputs.length);
+        this.plan.execute(values, scratch);
+        final int[] result = new int[this.plan.getOutputCount()];
+        this.plan.readOutputs(values, result, 0);
+        request.future.complete(result);
+      } catch (Throwable ex) {
+        request.future.completeExceptionally(ex);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    this.closed = true;
+    boolean interrupted = false;
+    for (final Thread worker : this.workers) {
+      if (worker == Thread.currentThread()) {
+        continue;
+      }
+      while (worker.isAlive()) {
+        try {
+          worker.join();
+        } catch (InterruptedException ex) {
+          interrupted = true;
+        }
+      }
+    }
+    Request left;
+    while ((left = this.queue.poll()) != null) {
+      left.future.completeExceptionally(new IllegalStateException("Service is closed"));
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static final class Request {
+    private final int[] inputs;
+    private final CompletableFuture<int[]> future;
+
+    private Request(final int[] inputs, final CompletableFuture<int[]> future) {
+      this.inputs = inputs;
+      this.future = future;
+    }
+  }
+}
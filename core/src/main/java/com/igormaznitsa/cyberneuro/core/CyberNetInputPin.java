@@ -1,7 +1,5 @@
 package com.igormaznitsa.cyberneuro.core;
 
-import java.util.Objects;
-
 public final class CyberNetInputPin implements CyberNetEntity, HasOutput {
 
   private final long uid;
@@ -11,12 +9,12 @@ public final class CyberNetInputPin implements CyberNetEntity, HasOutput {
   }
 
   static CyberNetInputPin makeNew() {
-    return new CyberNetInputPin(UID_GENERATOR.incrementAndGet());
+    return new CyberNetInputPin(UidAllocator.next());
   }
 
   @Override
   public CyberNetEntity makeCopy() {
-    return new CyberNetInputPin(UID_GENERATOR.incrementAndGet());
+    return new CyberNetInputPin(UidAllocator.next());
   }
 
   @Override
@@ -38,6 +36,6 @@ public final class CyberNetInputPin implements CyberNetEntity, HasOutput {
 
   @Override
   public int hashCode() {
-    return Objects.hash(this.uid);
+    return Long.hashCode(this.uid);
   }
 }
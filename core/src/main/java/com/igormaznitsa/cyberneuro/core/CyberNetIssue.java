@@ -0,0 +1,38 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.util.Objects.requireNonNull;
+
+public final class CyberNetIssue {
+  private final Type type;
+  private final CyberNetEntity entity;
+  private final int index;
+
+  CyberNetIssue(final Type type, final CyberNetEntity entity, final int index) {
+    this.type = requireNonNull(type);
+    this.entity = requireNonNull(entity);
+    this.index = index;
+  }
+
+  public Type getType() {
+    return this.type;
+  }
+
+  public CyberNetEntity getEntity() {
+    return this.entity;
+  }
+
+  public int getIndex() {
+    return this.index;
+  }
+
+  @Override
+  public String toString() {
+    return this.type + "(" + this.entity.getUid() + (this.index < 0 ? "" : ":" + this.index) + ')';
+  }
+
+  public enum Type {
+    UNCONNECTED_INPUT,
+    UNUSED_OUTPUT,
+    NESTED_ERRORS
+  }
+}
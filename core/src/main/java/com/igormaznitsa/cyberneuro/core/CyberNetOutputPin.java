@@ -1,7 +1,5 @@
 package com.igormaznitsa.cyberneuro.core;
 
-import java.util.Objects;
-
 public class CyberNetOutputPin implements CyberNetEntity, IsActivable, HasOutput, IsTerminator {
   private final long uid;
 
@@ -10,12 +8,12 @@ public class CyberNetOutputPin implements CyberNetEntity, IsActivable, HasOutput
   }
 
   static CyberNetOutputPin makeNew() {
-    return new CyberNetOutputPin(UID_GENERATOR.incrementAndGet());
+    return new CyberNetOutputPin(UidAllocator.next());
   }
 
   @Override
   public CyberNetEntity makeCopy() {
-    return new CyberNetOutputPin(UID_GENERATOR.incrementAndGet());
+    return new CyberNetOutputPin(UidAllocator.next());
   }
 
   @Override
@@ -37,7 +35,7 @@ public class CyberNetOutputPin implements CyberNetEntity, IsActivable, HasOutput
 
   @Override
   public int hashCode() {
-    return Objects.hash(this.uid);
+    return Long.hashCode(this.uid);
   }
 
   @Override
@@ -0,0 +1,234 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public final class CyberNetPartition {
+  private final int inputCount;
+  private final int[] outputSlots;
+  private final List<CyberNetShard> shards;
+  private final int[] exchangeIndexes;
+  private final int exchangeWidth;
+  private final int cutSize;
+
+  private CyberNetPartition(
+      final ExecutionPlan plan,
+      final List<CyberNetShard> shards,
+      final int cutSize) {
+    this.inputCount = plan.getInputCount();
+    this.shards = Collections.unmodifiableList(shards);
+    this.cutSize = cutSize;
+    this.exchangeIndexes = new int[plan.getSlotCount()];
+    Arrays.fill(this.exchangeIndexes, -1);
+    int width = 0;
+    for (int i = 0; i < this.inputCount; i++) {
+      this.exchangeIndexes[i] = width++;
+    }
+    for (final CyberNetShard shard : shards) {
+      for (int i = 0; i < shard.getExportSize(); i++) {
+        this.exchangeIndexes[shard.getExportSlot(i)] = width++;
+      }
+    }
+    this.exchangeWidth = width;
+    this.outputSlots = new int[plan.getOutputCount()];
+    for (int i = 0; i < this.outputSlots.length; i++) {
+      this.outputSlots[i] = plan.getOutputSlot(i);
+    }
+  }
+
+  static CyberNetPartition of(
+      final ExecutionPlan plan,
+      final int shardCount,
+      final double balanceTolerance) {
+    final int steps = plan.getStepCount();
+    if (shardCount <= 0 || shardCount > Math.max(1, steps)) {
+      throw new IllegalArgumentException(
+          format("Number of shards must be in 1..%d: %d", Math.max(1, steps), shardCount));
+    }
+    if (balanceTolerance < 0.0d || balanceTolerance >= 0.5d) {
+      throw new IllegalArgumentException("Balance tolerance must be in [0, 0.5): "
+          + balanceTolerance);
+    }
+
+    final int[] slotProducers = new int[plan.getSlotCount()];
+    Arrays.fill(slotProducers, -1);
+    for (int step = 0; step < steps; step++) {
+      for (int i = 0; i < plan.getStepOutputSize(step); i++) {
+        slotProducers[plan.getStepOutputSlot(step) + i] = step;
+      }
+    }
+    final int[] lastConsumers = new int[plan.getSlotCount()];
+    final int[] live = new int[steps + 1];
+    for (int slot = 0; slot < lastConsumers.length; slot++) {
+      int last = -1;
+      for (int c = plan.getSlotConsumerFrom(slot); c < plan.getSlotConsumerTo(slot); c++) {
+        last = Math.max(last, plan.getSlotConsumerStep(c));
+      }
+      lastConsumers[slot] = last;
+      if (slotProducers[slot] >= 0 && last > slotProducers[slot]) {
+        live[slotProducers[slot] + 1]++;
+        live[last + 1]--;
+      }
+    }
+    for (int i = 1; i <= steps; i++) {
+      live[i] += live[i - 1];
+    }
+
+    final long[] work = new long[steps + 1];
+    for (int step = 0; step < steps; step++) {
+      work[step + 1] = work[step] + 1 + plan.getStepInputTo(step) - plan.getStepInputFrom(step);
+    }
+    final int[] bounds = new int[shardCount + 1];
+    bounds[shardCount] = steps;
+    int cutSize = 0;
+    for (int k = 1; k < shardCount; k++) {
+      final double target = (double) work[steps] * k / shardCount;
+      final double slack = balanceTolerance * work[steps] / shardCount;
+      final int minBound = bounds[k - 1] + 1;
+      final int maxBound = steps - (shardCount - k);
+      int best = -1;
+      for (int p = minBound; p <= maxBound; p++) {
+        if (Math.abs(work[p] - target) > slack) {
+          continue;
+        }
+        if (best < 0 || live[p] < live[best]
+            || (live[p] == live[best] && Math.abs(work[p] - target) < Math.abs(work[best]
+            - target))) {
+          best = p;
+        }
+      }
+      if (best < 0) {
+        best = minBound;
+        for (int p = minBound; p <= maxBound; p++) {
+          if (Math.abs(work[p] - target) < Math.abs(work[best] - target)) {
+            best = p;
+          }
+        }
+      }
+      bounds[k] = best;
+      cutSize += live[best];
+    }
+
+    final boolean[] outputSlots = new boolean[plan.getSlotCount()];
+    for (int i = 0; i < plan.getOutputCount(); i++) {
+      outputSlots[plan.getOutputSlot(i)] = true;
+    }
+    final List<CyberNetShard> shards = new ArrayList<>(shardCount);
+    final boolean[] imported = new boolean[plan.getSlotCount()];
+    for (int k = 0; k < shardCount; k++) {
+      final int from = bounds[k];
+      final int to = bounds[k + 1];
+      final List<Integer> imports = new ArrayList<>();
+      for (int step = from; step < to; step++) {
+        for (int i = plan.getStepInputFrom(step); i < plan.getStepInputTo(step); i++) {
+          final int slot = plan.getStepInputSlot(i);
+          if (slotProducers[slot] < from && !imported[slot]) {
+            imported[slot] = true;
+            imports.add(slot);
+          }
+        }
+      }
+      for (final int slot : imports) {
+        imported[slot] = false;
+      }
+      final List<Integer> exports = new ArrayList<>();
+      for (int step = from; step < to; step++) {
+        for (int i = 0; i < plan.getStepOutputSize(step); i++) {
+          final int slot = plan.getStepOutputSlot(step) + i;
+          if (lastConsumers[slot] >= to || outputSlots[slot]) {
+            exports.add(slot);
+          }
+        }
+      }
+      shards.add(CyberNetShard.of(plan, from, to,
+          imports.stream().mapToInt(Integer::intValue).toArray(),
+          exports.stream().mapToInt(Integer::intValue).toArray()));
+    }
+    return new CyberNetPartition(plan, shards, cutSize);
+  }
+
+  public List<CyberNetShard> getShards() {
+    return this.shards;
+  }
+
+  public int getCutSize() {
+    return this.cutSize;
+  }
+
+  public int[] activate(final ShardTransport transport, final int[] inputs) {
+    return this.activateBatch(transport, inputs, 1).join();
+  }
+
+  public CompletableFuture<int[]> activateBatch(
+      final ShardTransport transport,
+      final int[] inputs,
+      final int sampleCount) {
+    requireNonNull(transport);
+    if (sampleCount < 0 || (long) sampleCount * this.inputCount != inputs.length) {
+      throw new IllegalArgumentException(
+          format("Wrong batch length, detected %d but expected %d", inputs.length,
+              (long) sampleCount * this.inputCount));
+    }
+    final int[] exchange = new int[sampleCount * this.exchangeWidth];
+    for (int s = 0; s < sampleCount; s++) {
+      System.arraycopy(inputs, s * this.inputCount, exchange, s * this.exchangeWidth,
+          this.inputCount);
+    }
+    CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+    for (int k = 0; k < this.shards.size(); k++) {
+      final int shardIndex = k;
+      final CyberNetShard shard = this.shards.get(k);
+      chain = chain
+          .thenCompose(x -> transport.execute(shardIndex, sampleCount,
+              this.gather(shard, exchange, sampleCount)))
+          .thenAccept(result -> this.scatter(shard, result, exchange, sampleCount));
+    }
+    return chain.thenApply(x -> {
+      final int[] result = new int[sampleCount * this.outputSlots.length];
+      for (int s = 0; s < sampleCount; s++) {
+        for (int i = 0; i < this.outputSlots.length; i++) {
+          result[s * this.outputSlots.length + i] =
+              exchange[s * this.exchangeWidth + this.exchangeIndexes[this.outputSlots[i]]];
+        }
+      }
+      return result;
+    });
+  }
+
+  private int[] gather(final CyberNetShard shard, final int[] exchange, final int sampleCount) {
+    final int width = shard.getImportSize();
+    final int[] result = new int[sampleCount * width];
+    for (int i = 0; i < width; i++) {
+      final int index = this.exchangeIndexes[shard.getImportSlot(i)];
+      for (int s = 0; s < sampleCount; s++) {
+        result[s * width + i] = exchange[s * this.exchangeWidth + index];
+      }
+    }
+    return result;
+  }
+
+  private void scatter(
+      final CyberNetShard shard,
+      final int[] values,
+      final int[] exchange,
+      final int sampleCount) {
+    final int width = shard.getExportSize();
+    if (values.length != sampleCount * width) {
+      throw new IllegalStateException(
+          format("Unexpected shard result length, detected %d but expected %d", values.length,
+              sampleCount * width));
+    }
+    for (int i = 0; i < width; i++) {
+      final int index = this.exchangeIndexes[shard.getExportSlot(i)];
+      for (int s = 0; s < sampleCount; s++) {
+        exchange[s * this.exchangeWidth + index] = values[s * width + i];
+      }
+    }
+  }
+}
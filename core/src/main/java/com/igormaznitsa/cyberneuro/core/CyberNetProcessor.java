@@ -0,0 +1,360 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class CyberNetProcessor implements Flow.Processor<int[], int[]> {
+  private final CyberNet net;
+  private final int maxBatchSize;
+  private final long maxLatencyNanos;
+  private final int parallelism;
+  private final boolean ordered;
+  private final Executor executor;
+  private final long window;
+
+  private final Object lock = new Object();
+  private final AtomicInteger wip = new AtomicInteger();
+  private final Deque<Batch> pendingBatches = new ArrayDeque<>();
+  private final TreeMap<Long, int[][]> completedBatches = new TreeMap<>();
+  private final Deque<int[]> ready = new ArrayDeque<>();
+
+  private Flow.Subscription upstream;
+  private Flow.Subscriber<? super int[]> downstream;
+  private long demand;
+  private long requested;
+  private long inFlight;
+  private List<int[]> batch = new ArrayList<>();
+  private long batchCounter;
+  private long nextEmittedBatch;
+  private int runningBatches;
+  private boolean upstreamDone;
+  private boolean cancelled;
+  private boolean terminated;
+  private Throwable error;
+
+  private CyberNetProcessor(
+      final CyberNet net,
+      final int maxBatchSize,
+      final Duration maxLatency,
+      final int parallelism,
+      final boolean ordered,
+      final Executor executor) {
+    this.net = requireNonNull(net);
+    this.maxBatchSize = maxBatchSize;
+    this.maxLatencyNanos = maxLatency.toNanos();
+    this.parallelism = parallelism;
+    this.ordered = ordered;
+    this.executor = requireNonNull(executor);
+    this.window = 2L * maxBatchSize * parallelism;
+  }
+
+  public static CyberNetProcessor of(
+      final CyberNet net,
+      final int maxBatchSize,
+      final Duration maxLatency,
+      final int parallelism,
+      final boolean ordered) {
+    return of(net, maxBatchSize, maxLatency, parallelism, ordered, ForkJoinPool.commonPool());
+  }
+
+  public static CyberNetProcessor of(
+      final CyberNet net,
+      final int maxBatchSize,
+      final Duration maxLatency,
+      final int parallelism,
+      final boolean ordered,
+      final Executor executor) {
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("Max batch size must be positive one");
+    }
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Parallelism must be positive one");
+    }
+    if (maxLatency.isNegative()) {
+      throw new IllegalArgumentException("Max latency must not be negative one");
+    }
+    return new CyberNetProcessor(net, maxBatchSize, maxLatency, parallelism, ordered, executor);
+  }
+
+  @Override
+  public void subscribe(final Flow.Subscriber<? super int[]> subscriber) {
+    requireNonNull(subscriber);
+    synchronized (this.lock) {
+      if (this.downstream == null) {
+        this.downstream = subscriber;
+      } else {
+        subscriber.onSubscribe(new Flow.Subscription() {
+          @Override
+          public void request(final long n) {
+          }
+
+          @Override
+          public void cancel() {
+          }
+        });
+        subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+        return;
+      }
+    }
+    subscriber.onSubscribe(new Flow.Subscription() {
+      @Override
+      public void request(final long n) {
+        onDownstreamRequest(n);
+      }
+
+      @Override
+      public void cancel() {
+        onDownstreamCancel();
+      }
+    });
+    this.drain();
+  }
+
+  @Override
+  public void onSubscribe(final Flow.Subscription subscription) {
+    requireNonNull(subscription);
+    synchronized (this.lock) {
+      if (this.upstream != null) {
+        subscription.cancel();
+        return;
+      }
+      this.upstream = subscription;
+    }
+    this.requestUpstream();
+  }
+
+  @Override
+  public void onNext(final int[] item) {
+    requireNonNull(item);
+    final List<Batch> toStart;
+    synchronized (this.lock) {
+      if (this.cancelled || this.terminated) {
+        return;
+      }
+      this.requested--;
+      this.inFlight++;
+      this.batch.add(item);
+      if (this.batch.size() >= this.maxBatchSize) {
+        toStart = this.dispatchBatch();
+      } else {
+        if (this.batch.size() == 1) {
+          final long batchId = this.batchCounter;
+          CompletableFuture.delayedExecutor(this.maxLatencyNanos, TimeUnit.NANOSECONDS,
+              this.executor).execute(() -> this.onLatencyExpired(batchId));
+        }
+        toStart = List.of();
+      }
+    }
+    this.start(toStart);
+  }
+
+  @Override
+  public void onError(final Throwable throwable) {
+    requireNonNull(throwable);
+    synchronized (this.lock) {
+      if (this.error == null) {
+        this.error = throwable;
+      }
+    }
+    this.drain();
+  }
+
+  @Override
+  public void onComplete() {
+    final List<Batch> toStart;
+    synchronized (this.lock) {
+      this.upstreamDone = true;
+      toStart = this.batch.isEmpty() ? List.of() : this.dispatchBatch();
+    }
+    this.start(toStart);
+    this.drain();
+  }
+
+  private void onLatencyExpired(final long batchId) {
+    final List<Batch> toStart;
+    synchronized (this.lock) {
+      if (batchId != this.batchCounter || this.batch.isEmpty()) {
+        return;
+      }
+      toStart = this.dispatchBatch();
+    }
+    this.start(toStart);
+  }
+
+  private void onDownstreamRequest(final long n) {
+    synchronized (this.lock) {
+      if (n <= 0L) {
+        if (this.error == null) {
+          this.error = new IllegalArgumentException("Request must be positive: " + n);
+        }
+      } else {
+        this.demand = this.demand + n < 0L ? Long.MAX_VALUE : this.demand + n;
+      }
+    }
+    this.requestUpstream();
+    this.drain();
+  }
+
+  private void onDownstreamCancel() {
+    final Flow.Subscription subscription;
+    synchronized (this.lock) {
+      this.cancelled = true;
+      subscription = this.upstream;
+      this.batch = new ArrayList<>();
+      this.pendingBatches.clear();
+      this.completedBatches.clear();
+      this.ready.clear();
+    }
+    if (subscription != null) {
+      subscription.cancel();
+    }
+  }
+
+  private void requestUpstream() {
+    final Flow.Subscription subscription;
+    final long n;
+    synchronized (this.lock) {
+      subscription = this.upstream;
+      if (subscription == null || this.upstreamDone || this.cancelled || this.terminated) {
+        return;
+      }
+      n = Math.min(this.demand, this.window) - this.requested - this.inFlight;
+      if (n <= 0L) {
+        return;
+      }
+      this.requested += n;
+    }
+    subscription.request(n);
+  }
+
+  private List<Batch> dispatchBatch() {
+    this.pendingBatches.add(new Batch(this.batchCounter++, this.batch));
+    this.batch = new ArrayList<>();
+    final List<Batch> result = new ArrayList<>();
+    while (this.runningBatches < this.parallelism && !this.pendingBatches.isEmpty()) {
+      this.runningBatches++;
+      result.add(this.pendingBatches.poll());
+    }
+    return result;
+  }
+
+  private void start(final List<Batch> batches) {
+    for (final Batch b : batches) {
+      this.executor.execute(() -> this.process(b));
+    }
+  }
+
+  private void process(final Batch b) {
+    int[][] results = null;
+    Throwable failure = null;
+    try {
+      results = new int[b.items.size()][];
+      for (int i = 0; i < results.length; i++) {
+        results[i] = this.net.activate(b.items.get(i));
+      }
+    } catch (Throwable ex) {
+      failure = ex;
+    }
+
+    final List<Batch> toStart = new ArrayList<>();
+    final Flow.Subscription toCancel;
+    synchronized (this.lock) {
+      this.runningBatches--;
+      if (failure == null) {
+        this.completedBatches.put(b.id, results);
+        toCancel = null;
+      } else {
+        if (this.error == null) {
+          this.error = failure;
+        }
+        toCancel = this.upstream;
+      }
+      while (this.runningBatches < this.parallelism && !this.pendingBatches.isEmpty()) {
+        this.runningBatches++;
+        toStart.add(this.pendingBatches.poll());
+      }
+    }
+    if (toCancel != null) {
+      toCancel.cancel();
+    }
+    this.start(toStart);
+    this.drain();
+  }
+
+  private void drain() {
+    if (this.wip.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      while (true) {
+        final Flow.Subscriber<? super int[]> subscriber;
+        int[] item = null;
+        Throwable failure = null;
+        boolean complete = false;
+        synchronized (this.lock) {
+          subscriber = this.downstream;
+          if (subscriber == null || this.cancelled || this.terminated) {
+            break;
+          }
+          if (this.error != null) {
+            this.terminated = true;
+            failure = this.error;
+          } else {
+            while (!this.completedBatches.isEmpty()
+                && (!this.ordered || this.completedBatches.firstKey() == this.nextEmittedBatch)) {
+              for (final int[] result : this.completedBatches.pollFirstEntry().getValue()) {
+                this.ready.add(result);
+              }
+              this.nextEmittedBatch++;
+            }
+            if (this.demand > 0L && !this.ready.isEmpty()) {
+              item = this.ready.poll();
+              this.demand--;
+              this.inFlight--;
+            } else if (this.upstreamDone && this.inFlight == 0L) {
+              this.terminated = true;
+              complete = true;
+            }
+          }
+        }
+        if (failure != null) {
+          subscriber.onError(failure);
+          break;
+        }
+        if (item != null) {
+          subscriber.onNext(item);
+          this.requestUpstream();
+          continue;
+        }
+        if (complete) {
+          subscriber.onComplete();
+        }
+        break;
+      }
+      missed = this.wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private static final class Batch {
+    private final long id;
+    private final List<int[]> items;
+
+    private Batch(final long id, final List<int[]> items) {
+      this.id = id;
+      this.items = items;
+    }
+  }
+}
@@ -0,0 +1,195 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.lang.String.format;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+public final class CyberNetShard {
+  static final int MAGIC = 0x434E5348;
+
+  private final int[] importSlots;
+  private final int[] exportSlots;
+  private final int[] exportLocalSlots;
+  private final CyberNeuron[] neurons;
+  private final int[] stepInputOffsets;
+  private final int[] stepInputSlots;
+  private final int maxStepInputs;
+
+  private CyberNetShard(
+      final int[] importSlots,
+      final int[] exportSlots,
+      final int[] exportLocalSlots,
+      final CyberNeuron[] neurons,
+      final int[] stepInputOffsets,
+      final int[] stepInputSlots) {
+    this.importSlots = importSlots;
+    this.exportSlots = exportSlots;
+    this.exportLocalSlots = exportLocalSlots;
+    this.neurons = neurons;
+    this.stepInputOffsets = stepInputOffsets;
+    this.stepInputSlots = stepInputSlots;
+    int max = 0;
+    for (int i = 0; i < neurons.length; i++) {
+      max = Math.max(max, stepInputOffsets[i + 1] - stepInputOffsets[i]);
+    }
+    this.maxStepInputs = max;
+  }
+
+  static CyberNetShard of(
+      final ExecutionPlan plan,
+      final int fromStep,
+      final int toStep,
+      final int[] importSlots,
+      final int[] exportSlots) {
+    final int[] localSlots = new int[plan.getSlotCount()];
+    Arrays.fill(localSlots, -1);
+    for (int i = 0; i < importSlots.length; i++) {
+      localSlots[importSlots[i]] = i;
+    }
+    final CyberNeuron[] neurons = new CyberNeuron[toStep - fromStep];
+    final int[] stepInputOffsets = new int[neurons.length + 1];
+    for (int step = fromStep; step < toStep; step++) {
+      final CyberNeuron neuron = plan.findNeuron(step);
+      if (neuron == null) {
+        throw new IllegalStateException(
+            "Only neurons can be sharded, detected: " + plan.getActivable(step));
+      }
+      neurons[step - fromStep] = (CyberNeuron) neuron.makeCopy();
+      stepInputOffsets[step - fromStep + 1] = stepInputOffsets[step - fromStep]
+          + plan.getStepInputTo(step) - plan.getStepInputFrom(step);
+      localSlots[plan.getStepOutputSlot(step)] = importSlots.length + step - fromStep;
+    }
+    final int[] stepInputSlots = new int[stepInputOffsets[neurons.length]];
+    int position = 0;
+    for (int step = fromStep; step < toStep; step++) {
+      for (int i = plan.getStepInputFrom(step); i < plan.getStepInputTo(step); i++) {
+        final int local = localSlots[plan.getStepInputSlot(i)];
+        if (local < 0) {
+          throw new IllegalStateException("Slot is not available in shard: "
+              + plan.getStepInputSlot(i));
+        }
+        stepInputSlots[position++] = local;
+      }
+    }
+    final int[] exportLocalSlots = new int[exportSlots.length];
+    for (int i = 0; i < exportSlots.length; i++) {
+      exportLocalSlots[i] = localSlots[exportSlots[i]];
+    }
+    return new CyberNetShard(importSlots.clone(), exportSlots.clone(), exportLocalSlots, neurons,
+        stepInputOffsets, stepInputSlots);
+  }
+
+  public static CyberNetShard readFrom(final DataInput in) throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a cyber net shard");
+    }
+    final int[] importSlots = readInts(in);
+    final int[] exportSlots = readInts(in);
+    final int[] exportLocalSlots = readInts(in);
+    final int[] stepInputOffsets = readInts(in);
+    final int[] stepInputSlots = readInts(in);
+    final CyberNeuron[] neurons = new CyberNeuron[stepInputOffsets.length - 1];
+    for (int i = 0; i < neurons.length; i++) {
+      final int inputSize = in.readInt();
+      final int rowLength = in.readInt();
+      if (inputSize != stepInputOffsets[i + 1] - stepInputOffsets[i] || rowLength <= 0) {
+        throw new IOException("Corrupted neuron record: " + i);
+      }
+      final byte[] table = new byte[inputSize * rowLength];
+      in.readFully(table);
+      final CyberNeuron neuron = CyberNeuron.of(inputSize, rowLength - 1);
+      neuron.fill(table);
+      neuron.setLock(true);
+      neurons[i] = neuron;
+    }
+    return new CyberNetShard(importSlots, exportSlots, exportLocalSlots, neurons,
+        stepInputOffsets, stepInputSlots);
+  }
+
+  private static int[] readInts(final DataInput in) throws IOException {
+    final int length = in.readInt();
+    if (length < 0) {
+      throw new IOException("Negative array length: " + length);
+    }
+    final int[] result = new int[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = in.readInt();
+    }
+    return result;
+  }
+
+  private static void writeInts(final DataOutput out, final int[] array) throws IOException {
+    out.writeInt(array.length);
+    for (final int value : array) {
+      out.writeInt(value);
+    }
+  }
+
+  public void writeTo(final DataOutput out) throws IOException {
+    out.writeInt(MAGIC);
+    writeInts(out, this.importSlots);
+    writeInts(out, this.exportSlots);
+    writeInts(out, this.exportLocalSlots);
+    writeInts(out, this.stepInputOffsets);
+    writeInts(out, this.stepInputSlots);
+    for (final CyberNeuron neuron : this.neurons) {
+      out.writeInt(neuron.getInputSize());
+      out.writeInt(neuron.getRowLength());
+      final byte[] table = new byte[neuron.getInputSize() * neuron.getRowLength()];
+      for (int i = 0; i < table.length; i++) {
+        table[i] = (byte) neuron.getTableValue(i);
+      }
+      out.write(table);
+    }
+  }
+
+  int getImportSlot(final int index) {
+    return this.importSlots[index];
+  }
+
+  int getExportSlot(final int index) {
+    return this.exportSlots[index];
+  }
+
+  public int getImportSize() {
+    return this.importSlots.length;
+  }
+
+  public int getExportSize() {
+    return this.exportSlots.length;
+  }
+
+  public int getStepCount() {
+    return this.neurons.length;
+  }
+
+  public int[] execute(final int sampleCount, final int[] inputs) {
+    if (sampleCount < 0 || (long) sampleCount * this.importSlots.length != inputs.length) {
+      throw new IllegalArgumentException(
+          format("Wrong batch length, detected %d but expected %d", inputs.length,
+              (long) sampleCount * this.importSlots.length));
+    }
+    final int[] values = new int[this.importSlots.length + this.neurons.length];
+    final int[] scratch = new int[this.maxStepInputs];
+    final int[] result = new int[sampleCount * this.exportLocalSlots.length];
+    for (int s = 0; s < sampleCount; s++) {
+      System.arraycopy(inputs, s * this.importSlots.length, values, 0, this.importSlots.length);
+      for (int step = 0; step < this.neurons.length; step++) {
+        final int from = this.stepInputOffsets[step];
+        final int to = this.stepInputOffsets[step + 1];
+        for (int i = from; i < to; i++) {
+          scratch[i - from] = values[this.stepInputSlots[i]];
+        }
+        values[this.importSlots.length + step] = this.neurons[step].calc(0, scratch);
+      }
+      final int offset = s * this.exportLocalSlots.length;
+      for (int i = 0; i < this.exportLocalSlots.length; i++) {
+        result[offset + i] = values[this.exportLocalSlots[i]];
+      }
+    }
+    return result;
+  }
+}
@@ -1,38 +1,77 @@
 package com.igormaznitsa.cyberneuro.core;
 
 import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 public class CyberNeuron implements CyberNetEntity, HasOutput, HasLock, IsActivable {
 
   private static final int THRESHOLD_NO = Byte.MAX_VALUE / 5;
   private static final int THRESHOLD_YES = Byte.MAX_VALUE - THRESHOLD_NO;
   private static final int THRESHOLD_MIDDLE = Byte.MAX_VALUE / 2;
+  private static final Map<Integer, WeakReference<byte[]>> CANONICAL_TABLES =
+      new ConcurrentHashMap<>();
   private final int inputSize;
   private final int rowLength;
   private final long uid;
-  private final byte[] table;
-
-  private boolean locked;
+  private final LockEpoch lockEpoch = new LockEpoch();
+  private byte[] table;
+  private boolean sharedTable;
+  private NeuronTable storage;
+
+  private volatile boolean locked;
+  private volatile ActivationCache activationCache;
+  private volatile int[] suffixBounds;
+  private volatile WideNeuronEvaluator wideEvaluator;
+  private int baseline;
+  private InputPacker cachePacker;
+  private TableJournal journal;
 
   public CyberNeuron(
       final long uid,
       final int inputSize,
       final int maxInputValue
+  ) {
+    this(uid, inputSize, maxInputValue, TableLayout.dense());
+  }
+
+  public CyberNeuron(
+      final long uid,
+      final int inputSize,
+      final int maxInputValue,
+      final TableLayout layout
   ) {
     this.uid = uid;
     this.inputSize = inputSize;
     this.rowLength = maxInputValue + 1;
-    this.table = new byte[inputSize * this.rowLength];
-    fillByPseudoRnd(this.table);
+    this.storage = layout.makeTable(inputSize, this.rowLength);
+    if (this.storage == null) {
+      this.table = findCanonicalTable(inputSize * this.rowLength);
+      this.sharedTable = true;
+    }
+    this.baseline = this.calcBaseline();
   }
 
   public static CyberNeuron of(
       final int inputSize,
       final int maxValue
+  ) {
+    return of(inputSize, maxValue, TableLayout.dense());
+  }
+
+  public static CyberNeuron of(
+      final int inputSize,
+      final int maxValue,
+      final TableLayout layout
   ) {
     if (inputSize <= 0) {
       throw new IllegalArgumentException("Number of inputs must be positive one");
@@ -40,32 +79,96 @@ public class CyberNeuron implements CyberNetEntity, HasOutput, HasLock, IsActiva
     if (maxValue < 0) {
       throw new IllegalArgumentException("Max value must not be negative one");
     }
-    return new CyberNeuron(UID_GENERATOR.incrementAndGet(), inputSize, maxValue);
+    if ((long) inputSize * (maxValue + 1L) > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+          format("Table %d x %d is too large", inputSize, maxValue + 1L));
+    }
+    return new CyberNeuron(UidAllocator.next(), inputSize, maxValue, requireNonNull(layout));
+  }
+
+  static byte[] findCanonicalTable(final int length) {
+    while (true) {
+      final WeakReference<byte[]> reference = CANONICAL_TABLES.get(length);
+      final byte[] found = reference == null ? null : reference.get();
+      if (found != null) {
+        return found;
+      }
+      final byte[] created = new byte[length];
+      fillByPseudoRnd(created);
+      final WeakReference<byte[]> createdReference = new WeakReference<>(created);
+      final byte[] result = CANONICAL_TABLES.compute(length,
+          (k, v) -> v == null || v.get() == null ? createdReference : v).get();
+      if (result != null) {
+        return result;
+      }
+    }
+  }
+
+  static int nextCanonicalSeed(final int seed) {
+    return (seed * 73129 + 95121) % 100000;
   }
 
   private static void fillByPseudoRnd(final byte[] array) {
     int seed = array.length;
     for (int i = 0; i < array.length; i++) {
-      seed = (seed * 73129 + 95121) % 100000;
+      seed = nextCanonicalSeed(seed);
       array[i] = (byte) seed;
     }
   }
 
   @Override
   public void setLock(boolean flag) {
+    if (this.locked != flag) {
+      this.lockEpoch.increment();
+      this.suffixBounds = flag ? this.makeSuffixBounds() : null;
+      final ActivationCache cache = this.activationCache;
+      if (cache != null && !flag) {
+        cache.invalidate();
+      }
+    }
     this.locked = flag;
   }
 
+  private int[] makeSuffixBounds() {
+    final int[] result = new int[(this.inputSize + 1) * 2];
+    for (int i = this.inputSize - 1; i >= 0; i--) {
+      final int rowStart = i * this.rowLength;
+      int min = this.getTableValue(rowStart);
+      int max = min;
+      for (int j = 1; j < this.rowLength; j++) {
+        final int value = this.getTableValue(rowStart + j);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+      }
+      result[i * 2] = result[i * 2 + 2] + min;
+      result[i * 2 + 1] = result[i * 2 + 3] + max;
+    }
+    return result;
+  }
+
   public boolean isLocked() {
     return this.locked;
   }
 
+  LockEpoch getLockEpoch() {
+    return this.lockEpoch;
+  }
+
   @Override
   public CyberNetEntity makeCopy() {
     final CyberNeuron result =
-        new CyberNeuron(UID_GENERATOR.incrementAndGet(), this.inputSize, this.rowLength - 1);
+        new CyberNeuron(UidAllocator.next(), this.inputSize, this.rowLength - 1,
+            this.getTableLayout());
     result.locked = this.locked;
-    System.arraycopy(this.table, 0, result.table, 0, this.table.length);
+    result.suffixBounds = this.suffixBounds;
+    if (this.storage != null) {
+      result.storage = this.storage.makeCopy();
+    } else if (!this.sharedTable) {
+      result.table = this.table.clone();
+      result.sharedTable = false;
+    }
+    result.baseline = this.baseline;
+    result.wideEvaluator = this.wideEvaluator;
     return result;
   }
 
@@ -81,7 +184,7 @@ public class CyberNeuron implements CyberNetEntity, HasOutput, HasLock, IsActiva
 
   @Override
   public int hashCode() {
-    return Objects.hash(this.uid);
+    return Long.hashCode(this.uid);
   }
 
   @Override
@@ -99,17 +202,193 @@ public class CyberNeuron implements CyberNetEntity, HasOutput, HasLock, IsActiva
     return false;
   }
 
+  public ActivationCache enableActivationCache(
+      final int maxEntries,
+      final CacheEviction eviction
+  ) {
+    final ActivationCache cache = ActivationCache.of(maxEntries, eviction);
+    this.cachePacker = InputPacker.ofUniform(this.inputSize, this.rowLength);
+    this.activationCache = cache;
+    return cache;
+  }
+
+  public void disableActivationCache() {
+    this.activationCache = null;
+  }
+
+  public Optional<ActivationCache> findActivationCache() {
+    return Optional.ofNullable(this.activationCache);
+  }
+
+  public void enableParallelEvaluation(final ForkJoinPool pool) {
+    this.enableParallelEvaluation(pool, WideNeuronEvaluator.DEFAULT_MIN_ROWS_PER_TASK);
+  }
+
+  public void enableParallelEvaluation(final ForkJoinPool pool, final int minRowsPerTask) {
+    this.wideEvaluator = WideNeuronEvaluator.of(pool, minRowsPerTask);
+  }
+
+  public void disableParallelEvaluation() {
+    this.wideEvaluator = null;
+  }
+
+  public Optional<ForkJoinPool> findParallelPool() {
+    final WideNeuronEvaluator wide = this.wideEvaluator;
+    return wide == null ? Optional.empty() : Optional.of(wide.getPool());
+  }
+
+  private WideNeuronEvaluator findWideEvaluator(final int rows) {
+    final WideNeuronEvaluator wide = this.wideEvaluator;
+    if (wide == null || this.storage != null || wide.findRowsPerTask(rows) < 0) {
+      return null;
+    }
+    return wide;
+  }
+
   public int getRowLength() {
     return this.rowLength;
   }
 
+  public TableLayout getTableLayout() {
+    return this.storage == null ? TableLayout.dense() : this.storage.getLayout();
+  }
+
+  boolean isTableShared() {
+    return this.sharedTable;
+  }
+
+  long getOwnedTableBytes() {
+    if (this.storage != null) {
+      return this.storage.getOwnedBytes();
+    }
+    return this.sharedTable ? 0L : this.table.length;
+  }
+
+  byte[] findSharedTable() {
+    if (this.storage != null) {
+      return this.storage.findSharedArray();
+    }
+    return this.sharedTable ? this.table : null;
+  }
+
   int getTableValue(final int index) {
-    return this.table[index];
+    final NeuronTable currentStorage = this.storage;
+    return currentStorage == null ? this.table[index] : currentStorage.get(index);
   }
 
   void setTableValue(final int index, final int value) {
     this.assertNonLocked();
+    if (this.journal != null) {
+      this.journal.record(index, this.getTableValue(index));
+    }
+    if (this.storage != null) {
+      final int rowStart = index - index % this.rowLength;
+      final int oldBase = this.storage.get(rowStart);
+      this.storage.set(index, value);
+      this.baseline += this.storage.get(rowStart) - oldBase;
+      return;
+    }
+    this.ensureOwnTable();
+    final byte old = this.table[index];
     this.table[index] = (byte) value;
+    if (index % this.rowLength == 0) {
+      this.baseline += this.table[index] - old;
+    }
+  }
+
+  public void begin() {
+    this.assertNonLocked();
+    if (this.journal != null) {
+      throw new IllegalStateException("Transaction is already active");
+    }
+    this.journal = new TableJournal();
+  }
+
+  public void commit() {
+    this.assertTransaction();
+    this.journal = null;
+  }
+
+  public void rollback() {
+    this.assertTransaction();
+    this.assertNonLocked();
+    final TableJournal current = this.journal;
+    this.journal = null;
+    for (int i = current.size() - 1; i >= 0; i--) {
+      this.setTableValue(current.getIndex(i), current.getValue(i));
+    }
+  }
+
+  public boolean isTransactionActive() {
+    return this.journal != null;
+  }
+
+  int getJournalSize() {
+    return this.journal == null ? 0 : this.journal.size();
+  }
+
+  private void assertTransaction() {
+    if (this.journal == null) {
+      throw new IllegalStateException("There is no active transaction");
+    }
+  }
+
+  private void ensureOwnTable() {
+    if (this.sharedTable) {
+      this.table = this.table.clone();
+      this.sharedTable = false;
+    }
+  }
+
+  private int calcBaseline() {
+    int result = 0;
+    for (int i = 0; i < this.inputSize * this.rowLength; i += this.rowLength) {
+      result += this.getTableValue(i);
+    }
+    return result;
+  }
+
+  public int getBaseline() {
+    return this.baseline;
+  }
+
+  /**
+   * Calculates the sum for inputs which are zero except the listed ones. If an index is listed
+   * more than once, the last value wins. Values must be in {@code [0, rowLength)}.
+   */
+  public int calcSparse(final int[] indexes, final int[] values, final int count) {
+    if (count < 0 || count > indexes.length || count > values.length) {
+      throw new IllegalArgumentException("Wrong number of sparse inputs: " + count);
+    }
+    int acc = this.baseline;
+    int previous = Integer.MAX_VALUE;
+    BitSet seen = null;
+    for (int i = count - 1; i >= 0; i--) {
+      final int index = indexes[i];
+      if (index < 0 || index >= this.inputSize) {
+        throw new IndexOutOfBoundsException("Input index is invalid: " + index);
+      }
+      final int value = values[i];
+      if (value < 0 || value >= this.rowLength) {
+        throw new IllegalArgumentException("Input value is out of range: " + value);
+      }
+      if (seen == null && index >= previous) {
+        seen = new BitSet();
+        for (int j = i + 1; j < count; j++) {
+          seen.set(indexes[j]);
+        }
+      }
+      if (seen != null) {
+        if (seen.get(index)) {
+          continue;
+        }
+        seen.set(index);
+      }
+      previous = index;
+      final int rowStart = index * this.rowLength;
+      acc += this.getTableValue(rowStart + value) - this.getTableValue(rowStart);
+    }
+    return acc;
   }
 
   @Override
@@ -182,7 +461,17 @@ public class CyberNeuron implements CyberNetEntity, HasOutput, HasLock, IsActiva
       throw new IllegalStateException("Unexpected state");
     }
 
-    learnStrategy.accept(this, inputVector, diff);
+    final int amount = Math.abs(diff);
+    final WideNeuronEvaluator wide = this.journal == null
+        ? this.findWideEvaluator(Math.min(amount, this.inputSize)) : null;
+    if (wide == null) {
+      learnStrategy.accept(this, inputVector, diff);
+    } else {
+      this.ensureOwnTable();
+      this.baseline += wide.apply(this.table, this.rowLength, inputVector,
+          learnStrategy.countRowHits(this.inputSize, amount), diff >= 0,
+          wide.findRowsPerTask(this.inputSize));
+    }
   }
 
   @Override
@@ -195,7 +484,32 @@ public class CyberNeuron implements CyberNetEntity, HasOutput, HasLock, IsActiva
   }
 
   public ConfidenceDegree check(final int offset, final int[] inputs) {
-    final int calculated = calc(offset, inputs);
+    final int[] bounds = this.suffixBounds;
+    if (bounds == null || this.activationCache != null
+        || this.findWideEvaluator(this.inputSize) != null) {
+      return toConfidence(calc(offset, inputs));
+    }
+    if (inputs.length - offset < this.inputSize) {
+      throw new IllegalArgumentException("Unexpected inputs size: " + (inputs.length - offset));
+    }
+    int acc = 0;
+    int offsetRow = 0;
+    for (int i = 0; i < this.inputSize; i++) {
+      final ConfidenceDegree lowest = toConfidence(acc + bounds[i * 2]);
+      if (lowest == toConfidence(acc + bounds[i * 2 + 1])) {
+        return lowest;
+      }
+      final int value = inputs[i + offset];
+      if (value < 0 || value >= this.rowLength) {
+        return toConfidence(this.calcDirect(offset, inputs));
+      }
+      acc += this.getTableValue(offsetRow + value);
+      offsetRow += this.rowLength;
+    }
+    return toConfidence(acc);
+  }
+
+  static ConfidenceDegree toConfidence(final int calculated) {
     if (calculated > THRESHOLD_YES) {
       return ConfidenceDegree.YES;
     }
@@ -216,6 +530,49 @@ public class CyberNeuron implements CyberNetEntity, HasOutput, HasLock, IsActiva
     if (inputs.length - offset < this.inputSize) {
       throw new IllegalArgumentException("Unexpected inputs size: " + (inputs.length - offset));
     }
+    final ActivationCache cache = this.activationCache;
+    if (cache != null && this.locked) {
+      return this.calcCached(cache, offset, inputs);
+    }
+    return this.calcDirect(offset, inputs);
+  }
+
+  private int calcCached(final ActivationCache cache, final int offset, final int[] inputs) {
+    final InputPacker packer = this.cachePacker;
+    final ActivationCache.Table cacheTable = cache.acquire(packer.getWords(), 1);
+    if (packer.isSingleWord()) {
+      final long key = packer.packSingle(inputs, offset);
+      if (key == InputPacker.INVALID) {
+        return this.calcDirect(offset, inputs);
+      }
+      final long found = cacheTable.lookup(key);
+      if (found != ActivationCache.MISS) {
+        return (int) found;
+      }
+      final int result = this.calcDirect(offset, inputs);
+      cacheTable.store(key, result);
+      return result;
+    } else {
+      final long[] key = new long[packer.getWords()];
+      if (!packer.pack(inputs, offset, key)) {
+        return this.calcDirect(offset, inputs);
+      }
+      final int[] found = new int[1];
+      if (cacheTable.lookup(key, found)) {
+        return found[0];
+      }
+      found[0] = this.calcDirect(offset, inputs);
+      cacheTable.store(key, found);
+      return found[0];
+    }
+  }
+
+  private int calcDirect(final int offset, final int[] inputs) {
+    final WideNeuronEvaluator wide = this.findWideEvaluator(this.inputSize);
+    if (wide != null) {
+      return wide.calc(this.table, this.rowLength, this.inputSize, offset, inputs,
+          wide.findRowsPerTask(this.inputSize));
+    }
     int acc = 0;
     int offsetRow = 0;
     for (int i = 0; i < this.inputSize; i++) {
@@ -225,6 +582,239 @@ public class CyberNeuron implements CyberNetEntity, HasOutput, HasLock, IsActiva
     return acc;
   }
 
+  public BitSlicedNeuron makeBitSliced() {
+    return BitSlicedNeuron.of(this);
+  }
+
+  public int getBitsPerPackedValue() {
+    return InputPacker.bitsFor(this.rowLength);
+  }
+
+  public int getPackedWords() {
+    final int valuesPerWord = Long.SIZE / this.getBitsPerPackedValue();
+    return (this.inputSize + valuesPerWord - 1) / valuesPerWord;
+  }
+
+  public long[] pack(final int[] inputs) {
+    if (inputs.length != this.inputSize) {
+      throw new IllegalArgumentException(
+          format("Wrong input size: %d != %d", this.inputSize, inputs.length));
+    }
+    final int bits = this.getBitsPerPackedValue();
+    final int valuesPerWord = Long.SIZE / bits;
+    final long[] result = new long[this.getPackedWords()];
+    for (int i = 0; i < inputs.length; i++) {
+      if (inputs[i] < 0 || inputs[i] >= this.rowLength) {
+        throw new IllegalArgumentException(format("Input %d is out of range: %d", i, inputs[i]));
+      }
+      result[i / valuesPerWord] |= (long) inputs[i] << (i % valuesPerWord * bits);
+    }
+    return result;
+  }
+
+  private void assertInRange(final byte[] values, final int offset, final int length) {
+    if (offset < 0 || length < 0 || length > values.length - offset) {
+      throw new IllegalArgumentException("Unexpected inputs size: " + (values.length - offset));
+    }
+    int max = 0;
+    for (int i = offset; i < offset + length; i++) {
+      max = Math.max(max, values[i] & 0xFF);
+    }
+    if (length > 0 && max >= this.rowLength) {
+      throw new IllegalArgumentException("Input value is out of range: " + max);
+    }
+  }
+
+  private void assertInRange(final ByteBuffer values, final int offset, final int length) {
+    if (offset < 0 || length < 0 || length > values.limit() - offset) {
+      throw new IllegalArgumentException(
+          "Unexpected inputs size: " + (values.limit() - offset));
+    }
+    int max = 0;
+    for (int i = offset; i < offset + length; i++) {
+      max = Math.max(max, values.get(i) & 0xFF);
+    }
+    if (length > 0 && max >= this.rowLength) {
+      throw new IllegalArgumentException("Input value is out of range: " + max);
+    }
+  }
+
+  private int calcUnchecked(final byte[] inputs, final int offset) {
+    int acc = 0;
+    int offsetRow = 0;
+    for (int i = 0; i < this.inputSize; i++) {
+      acc += this.getTableValue(offsetRow + (inputs[offset + i] & 0xFF));
+      offsetRow += this.rowLength;
+    }
+    return acc;
+  }
+
+  private int calcUnchecked(final ByteBuffer inputs, final int offset) {
+    int acc = 0;
+    int offsetRow = 0;
+    for (int i = 0; i < this.inputSize; i++) {
+      acc += this.getTableValue(offsetRow + (inputs.get(offset + i) & 0xFF));
+      offsetRow += this.rowLength;
+    }
+    return acc;
+  }
+
+  private int calcPackedUnchecked(final long[] packed, final int wordOffset) {
+    final int bits = this.getBitsPerPackedValue();
+    final int valuesPerWord = Long.SIZE / bits;
+    final long mask = (1L << bits) - 1L;
+    int acc = 0;
+    int offsetRow = 0;
+    int word = wordOffset;
+    int inWord = 0;
+    long current = packed[word];
+    for (int i = 0; i < this.inputSize; i++) {
+      if (inWord == valuesPerWord) {
+        current = packed[++word];
+        inWord = 0;
+      }
+      acc += this.getTableValue(offsetRow + (int) (current & mask));
+      current >>>= bits;
+      inWord++;
+      offsetRow += this.rowLength;
+    }
+    return acc;
+  }
+
+  private void assertPackedInRange(final long[] packed, final int wordOffset, final int samples) {
+    final int words = this.getPackedWords();
+    if (wordOffset < 0 || samples < 0 || wordOffset + (long) words * samples > packed.length) {
+      throw new IllegalArgumentException(
+          "Unexpected packed inputs size: " + (packed.length - wordOffset));
+    }
+    final int bits = this.getBitsPerPackedValue();
+    if (Integer.bitCount(this.rowLength) == 1 && this.rowLength > 1) {
+      return;
+    }
+    final int valuesPerWord = Long.SIZE / bits;
+    final long mask = (1L << bits) - 1L;
+    long max = 0L;
+    for (int s = 0; s < samples; s++) {
+      final int base = wordOffset + s * words;
+      for (int i = 0; i < this.inputSize; i++) {
+        max = Math.max(max,
+            (packed[base + i / valuesPerWord] >>> (i % valuesPerWord * bits)) & mask);
+      }
+    }
+    if (max >= this.rowLength) {
+      throw new IllegalArgumentException("Input value is out of range: " + max);
+    }
+  }
+
+  public int calc(final byte[] inputs) {
+    return this.calc(0, inputs);
+  }
+
+  public int calc(final int offset, final byte[] inputs) {
+    this.assertInRange(inputs, offset, this.inputSize);
+    return this.calcUnchecked(inputs, offset);
+  }
+
+  public int calc(final ByteBuffer inputs) {
+    this.assertInRange(inputs, inputs.position(), this.inputSize);
+    return this.calcUnchecked(inputs, inputs.position());
+  }
+
+  public int calcPacked(final long[] packed) {
+    this.assertPackedInRange(packed, 0, 1);
+    return this.calcPackedUnchecked(packed, 0);
+  }
+
+  private static void assertResultsLength(final int[] results, final int sampleCount) {
+    if (results.length < sampleCount) {
+      throw new IllegalArgumentException(
+          format("Wrong results length, detected %d but expected %d", results.length,
+              sampleCount));
+    }
+  }
+
+  public void calcBatch(final byte[] samples, final int sampleCount, final int[] results) {
+    if (sampleCount < 0 || (long) sampleCount * this.inputSize > samples.length) {
+      throw new IllegalArgumentException(
+          format("Wrong batch length, detected %d but expected %d", samples.length,
+              (long) sampleCount * this.inputSize));
+    }
+    assertResultsLength(results, sampleCount);
+    this.assertInRange(samples, 0, sampleCount * this.inputSize);
+    int offset = 0;
+    for (int i = 0; i < sampleCount; i++) {
+      results[i] = this.calcUnchecked(samples, offset);
+      offset += this.inputSize;
+    }
+  }
+
+  public void calcBatch(final ByteBuffer samples, final int[] results) {
+    if (samples.remaining() % this.inputSize != 0) {
+      throw new IllegalArgumentException(
+          format("Buffer contains %d bytes, it is not multiple of input size %d",
+              samples.remaining(), this.inputSize));
+    }
+    final int sampleCount = samples.remaining() / this.inputSize;
+    assertResultsLength(results, sampleCount);
+    this.assertInRange(samples, samples.position(), samples.remaining());
+    int offset = samples.position();
+    for (int i = 0; i < sampleCount; i++) {
+      results[i] = this.calcUnchecked(samples, offset);
+      offset += this.inputSize;
+    }
+  }
+
+  public void calcPackedBatch(final long[] packed, final int sampleCount, final int[] results) {
+    this.assertPackedInRange(packed, 0, sampleCount);
+    assertResultsLength(results, sampleCount);
+    final int words = this.getPackedWords();
+    for (int i = 0; i < sampleCount; i++) {
+      results[i] = this.calcPackedUnchecked(packed, i * words);
+    }
+  }
+
+  public void teach(final byte[] inputVector, final LearnStrategy learnStrategy,
+                    final ConfidenceDegree expectedConfidence) {
+    if (this.inputSize != inputVector.length) {
+      throw new IllegalArgumentException(
+          format("Wrong input size: %d != %d", this.inputSize, inputVector.length));
+    }
+    this.assertInRange(inputVector, 0, inputVector.length);
+    final int[] widened = new int[this.inputSize];
+    for (int i = 0; i < widened.length; i++) {
+      widened[i] = inputVector[i] & 0xFF;
+    }
+    this.teach(widened, learnStrategy, expectedConfidence);
+  }
+
+  public void teach(final ByteBuffer inputVector, final LearnStrategy learnStrategy,
+                    final ConfidenceDegree expectedConfidence) {
+    this.teach(inputVector, learnStrategy, expectedConfidence, new int[this.inputSize]);
+  }
+
+  void teach(final ByteBuffer inputVector, final LearnStrategy learnStrategy,
+             final ConfidenceDegree expectedConfidence, final int[] scratch) {
+    final int offset = inputVector.position();
+    this.assertInRange(inputVector, offset, this.inputSize);
+    for (int i = 0; i < this.inputSize; i++) {
+      scratch[i] = inputVector.get(offset + i) & 0xFF;
+    }
+    this.teach(scratch, learnStrategy, expectedConfidence);
+  }
+
+  public void teachPacked(final long[] packed, final LearnStrategy learnStrategy,
+                          final ConfidenceDegree expectedConfidence) {
+    this.assertPackedInRange(packed, 0, 1);
+    final int bits = this.getBitsPerPackedValue();
+    final int valuesPerWord = Long.SIZE / bits;
+    final long mask = (1L << bits) - 1L;
+    final int[] widened = new int[this.inputSize];
+    for (int i = 0; i < widened.length; i++) {
+      widened[i] = (int) ((packed[i / valuesPerWord] >>> (i % valuesPerWord * bits)) & mask);
+    }
+    this.teach(widened, learnStrategy, expectedConfidence);
+  }
+
   public String asText() {
     final StringBuilder buffer = new StringBuilder();
     buffer.append("CyberNeuron: [uid=").append(this.uid).append(", ");
@@ -0,0 +1,512 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.lang.String.format;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+final class ExecutionPlan {
+  static final int MAX_CACHED_CONES = 64;
+
+  private final int inputCount;
+  private final int slotCount;
+  private final int[] outputSlots;
+  private final IsActivable[] activables;
+  private final CyberNeuron[] neurons;
+  private final int[] stepInputOffsets;
+  private final int[] stepInputSlots;
+  private final int[] stepOutputSlots;
+  private final int[] stepOutputSizes;
+  private final int maxStepInputs;
+  private final int[] slotConsumerOffsets;
+  private final int[] slotConsumerSteps;
+  private final int[] slotConsumerPositions;
+  private final int[] stepInternalOffsets;
+  private final int[] stepInternalPositions;
+  private final ExecutionPlan[] singleCones;
+  private final Map<BitSet, ExecutionPlan> cones = new LinkedHashMap<>(16, 0.75f, true);
+
+  private ExecutionPlan(
+      final int inputCount,
+      final int slotCount,
+      final int[] outputSlots,
+      final List<IsActivable> steps,
+      final List<int[]> stepInputs,
+      final int[] stepOutputSlots,
+      final int[] stepOutputSizes) {
+    this.inputCount = inputCount;
+    this.slotCount = slotCount;
+    this.outputSlots = outputSlots;
+    this.activables = steps.toArray(new IsActivable[0]);
+    this.neurons = new CyberNeuron[this.activables.length];
+    this.stepInputOffsets = new int[this.activables.length + 1];
+    this.stepOutputSlots = stepOutputSlots;
+    this.stepOutputSizes = stepOutputSizes;
+
+    int total = 0;
+    int max = 0;
+    for (int i = 0; i < this.activables.length; i++) {
+      if (this.activables[i] instanceof CyberNeuron) {
+        this.neurons[i] = (CyberNeuron) this.activables[i];
+      }
+      this.stepInputOffsets[i] = total;
+      total += stepInputs.get(i).length;
+      max = Math.max(max, stepInputs.get(i).length);
+    }
+    this.stepInputOffsets[this.activables.length] = total;
+    this.stepInputSlots = new int[total];
+    for (int i = 0; i < this.activables.length; i++) {
+      final int[] slots = stepInputs.get(i);
+      System.arraycopy(slots, 0, this.stepInputSlots, this.stepInputOffsets[i], slots.length);
+    }
+    this.maxStepInputs = max;
+
+    this.slotConsumerOffsets = new int[slotCount + 1];
+    for (final int slot : this.stepInputSlots) {
+      this.slotConsumerOffsets[slot + 1]++;
+    }
+    for (int i = 0; i < slotCount; i++) {
+      this.slotConsumerOffsets[i + 1] += this.slotConsumerOffsets[i];
+    }
+    this.slotConsumerSteps = new int[total];
+    this.slotConsumerPositions = new int[total];
+    final int[] filled = new int[slotCount];
+    for (int step = 0; step < this.activables.length; step++) {
+      for (int i = this.stepInputOffsets[step]; i < this.stepInputOffsets[step + 1]; i++) {
+        final int slot = this.stepInputSlots[i];
+        final int index = this.slotConsumerOffsets[slot] + filled[slot]++;
+        this.slotConsumerSteps[index] = step;
+        this.slotConsumerPositions[index] = i - this.stepInputOffsets[step];
+      }
+    }
+
+    this.stepInternalOffsets = new int[this.activables.length + 1];
+    this.stepInternalPositions = new int[total - this.slotConsumerOffsets[inputCount]];
+    int internal = 0;
+    for (int step = 0; step < this.activables.length; step++) {
+      this.stepInternalOffsets[step] = internal;
+      for (int i = this.stepInputOffsets[step]; i < this.stepInputOffsets[step + 1]; i++) {
+        if (this.stepInputSlots[i] >= inputCount) {
+          this.stepInternalPositions[internal++] = i - this.stepInputOffsets[step];
+        }
+      }
+    }
+    this.stepInternalOffsets[this.activables.length] = internal;
+    this.singleCones = new ExecutionPlan[outputSlots.length];
+  }
+
+  static ExecutionPlan of(
+      final Collection<CyberNetEntity> entities,
+      final Collection<Set<CyberLink>> links) {
+    final Map<HasInput, CyberLink[]> incoming = new HashMap<>();
+    for (final Set<CyberLink> outgoing : links) {
+      for (final CyberLink link : outgoing) {
+        incoming.computeIfAbsent(link.target(), t -> new CyberLink[t.getInputSize()])
+            [link.targetIndex()] = link;
+      }
+    }
+
+    final Map<HasOutput, Integer> firstSlots = new HashMap<>();
+    final List<CyberNetOutputPin> outputPins = new ArrayList<>();
+    int slotCounter = 0;
+    for (final CyberNetEntity entity : entities) {
+      if (entity instanceof CyberNetInputPin) {
+        firstSlots.put((HasOutput) entity, slotCounter++);
+      } else if (entity instanceof CyberNetOutputPin) {
+        outputPins.add((CyberNetOutputPin) entity);
+      }
+    }
+    final int inputCount = slotCounter;
+
+    final List<IsActivable> steps = new ArrayList<>();
+    final List<int[]> stepInputs = new ArrayList<>();
+    final List<Integer> stepOutputSlots = new ArrayList<>();
+    final List<Integer> stepOutputSizes = new ArrayList<>();
+    final Map<HasInput, Boolean> visiting = new HashMap<>();
+    final int[] outputSlots = new int[outputPins.size()];
+
+    for (int o = 0; o < outputPins.size(); o++) {
+      final CyberNetOutputPin pin = outputPins.get(o);
+      final CyberLink pinLink = findInputLink(incoming, pin, 0);
+
+      final Deque<HasInput> stack = new ArrayDeque<>();
+      if (!firstSlots.containsKey(pinLink.source())) {
+        stack.push((HasInput) pinLink.source());
+      }
+      while (!stack.isEmpty()) {
+        final HasInput current = stack.peek();
+        final Boolean state = visiting.get(current);
+        if (state == null) {
+          visiting.put(current, Boolean.TRUE);
+          for (int i = current.getInputSize() - 1; i >= 0; i--) {
+            final HasOutput source = findInputLink(incoming, current, i).source();
+            if (firstSlots.containsKey(source)) {
+              continue;
+            }
+            if (visiting.get(source) == Boolean.TRUE) {
+              throw new IllegalStateException("Detected cycle through entity: " + source);
+            }
+            if (!visiting.containsKey(source)) {
+              stack.push((HasInput) source);
+            }
+          }
+        } else if (state == Boolean.TRUE) {
+          stack.pop();
+          visiting.put(current, Boolean.FALSE);
+          if (!(current instanceof IsActivable) || !(current instanceof HasOutput)) {
+            throw new IllegalStateException("Unexpected entity in chain: " + current);
+          }
+          final int[] inputSlots = new int[current.getInputSize()];
+          for (int i = 0; i < inputSlots.length; i++) {
+            final CyberLink link = findInputLink(incoming, current, i);
+            inputSlots[i] = firstSlots.get(link.source()) + link.sourceIndex();
+          }
+          final HasOutput output = (HasOutput) current;
+          firstSlots.put(output, slotCounter);
+          steps.add((IsActivable) current);
+          stepInputs.add(inputSlots);
+          stepOutputSlots.add(slotCounter);
+          stepOutputSizes.add(output.getOutputSize());
+          slotCounter += output.getOutputSize();
+        } else {
+          stack.pop();
+        }
+      }
+      outputSlots[o] = firstSlots.get(pinLink.source()) + pinLink.sourceIndex();
+    }
+
+    return new ExecutionPlan(
+        inputCount,
+        slotCounter,
+        outputSlots,
+        steps,
+        stepInputs,
+        stepOutputSlots.stream().mapToInt(Integer::intValue).toArray(),
+        stepOutputSizes.stream().mapToInt(Integer::intValue).toArray());
+  }
+
+  ExecutionPlan findCone(final int outputIndex) {
+    ExecutionPlan result = this.singleCones[outputIndex];
+    if (result == null) {
+      final BitSet mask = new BitSet();
+      mask.set(outputIndex);
+      result = this.makeCone(mask);
+      this.singleCones[outputIndex] = result;
+    }
+    return result;
+  }
+
+  ExecutionPlan findCone(final BitSet outputMask) {
+    if (outputMask.cardinality() == 1) {
+      return this.findCone(outputMask.nextSetBit(0));
+    }
+    synchronized (this.cones) {
+      ExecutionPlan result = this.cones.get(outputMask);
+      if (result == null) {
+        result = this.makeCone(outputMask);
+        this.cones.put((BitSet) outputMask.clone(), result);
+        if (this.cones.size() > MAX_CACHED_CONES) {
+          final Iterator<ExecutionPlan> eldest = this.cones.values().iterator();
+          eldest.next();
+          eldest.remove();
+        }
+      }
+      return result;
+    }
+  }
+
+  int getCachedConeCount() {
+    synchronized (this.cones) {
+      return this.cones.size();
+    }
+  }
+
+  private ExecutionPlan makeCone(final BitSet outputMask) {
+    final boolean[] neededSlots = new boolean[this.slotCount];
+    final int[] coneOutputs = new int[outputMask.cardinality()];
+    int position = 0;
+    for (int i = outputMask.nextSetBit(0); i >= 0; i = outputMask.nextSetBit(i + 1)) {
+      coneOutputs[position++] = this.outputSlots[i];
+      neededSlots[this.outputSlots[i]] = true;
+    }
+    final boolean[] neededSteps = new boolean[this.activables.length];
+    for (int step = this.activables.length - 1; step >= 0; step--) {
+      for (int i = 0; i < this.stepOutputSizes[step] && !neededSteps[step]; i++) {
+        neededSteps[step] = neededSlots[this.stepOutputSlots[step] + i];
+      }
+      if (neededSteps[step]) {
+        for (int i = this.stepInputOffsets[step]; i < this.stepInputOffsets[step + 1]; i++) {
+          neededSlots[this.stepInputSlots[i]] = true;
+        }
+      }
+    }
+    final List<IsActivable> steps = new ArrayList<>();
+    final List<int[]> stepInputs = new ArrayList<>();
+    final List<Integer> stepOutputSlots = new ArrayList<>();
+    final List<Integer> stepOutputSizes = new ArrayList<>();
+    for (int step = 0; step < this.activables.length; step++) {
+      if (neededSteps[step]) {
+        steps.add(this.activables[step]);
+        final int[] inputSlots = new int[this.stepInputOffsets[step + 1]
+            - this.stepInputOffsets[step]];
+        System.arraycopy(this.stepInputSlots, this.stepInputOffsets[step], inputSlots, 0,
+            inputSlots.length);
+        stepInputs.add(inputSlots);
+        stepOutputSlots.add(this.stepOutputSlots[step]);
+        stepOutputSizes.add(this.stepOutputSizes[step]);
+      }
+    }
+    return new ExecutionPlan(
+        this.inputCount,
+        this.slotCount,
+        coneOutputs,
+        steps,
+        stepInputs,
+        stepOutputSlots.stream().mapToInt(Integer::intValue).toArray(),
+        stepOutputSizes.stream().mapToInt(Integer::intValue).toArray());
+  }
+
+  private static CyberLink findInputLink(
+      final Map<HasInput, CyberLink[]> incoming,
+      final HasInput target,
+      final int index) {
+    final CyberLink[] links = incoming.get(target);
+    if (links == null || links[index] == null) {
+      throw new IllegalStateException(format("Input %d of %s is not linked", index, target));
+    }
+    return links[index];
+  }
+
+  int getInputCount() {
+    return this.inputCount;
+  }
+
+  int getOutputCount() {
+    return this.outputSlots.length;
+  }
+
+  int getSlotCount() {
+    return this.slotCount;
+  }
+
+  int getStepCount() {
+    return this.activables.length;
+  }
+
+  IsActivable getActivable(final int step) {
+    return this.activables[step];
+  }
+
+  CyberNeuron findNeuron(final int step) {
+    return this.neurons[step];
+  }
+
+  int getStepInputFrom(final int step) {
+    return this.stepInputOffsets[step];
+  }
+
+  int getStepInputTo(final int step) {
+    return this.stepInputOffsets[step + 1];
+  }
+
+  int getStepInputSlot(final int index) {
+    return this.stepInputSlots[index];
+  }
+
+  int getStepOutputSlot(final int step) {
+    return this.stepOutputSlots[step];
+  }
+
+  int getStepOutputSize(final int step) {
+    return this.stepOutputSizes[step];
+  }
+
+  int getOutputSlot(final int index) {
+    return this.outputSlots[index];
+  }
+
+  int getSlotConsumerFrom(final int slot) {
+    return this.slotConsumerOffsets[slot];
+  }
+
+  int getSlotConsumerTo(final int slot) {
+    return this.slotConsumerOffsets[slot + 1];
+  }
+
+  int getSlotConsumerStep(final int index) {
+    return this.slotConsumerSteps[index];
+  }
+
+  int getSlotConsumerPosition(final int index) {
+    return this.slotConsumerPositions[index];
+  }
+
+  int[] makeValues() {
+    return new int[this.slotCount];
+  }
+
+  int[] makeScratch() {
+    return new int[this.maxStepInputs];
+  }
+
+  int[] activate(final int[] inputs) {
+    final int[] values = this.makeValues();
+    System.arraycopy(inputs, 0, values, 0, this.inputCount);
+    this.execute(values, this.makeScratch());
+    final int[] result = new int[this.outputSlots.length];
+    this.readOutputs(values, result, 0);
+    return result;
+  }
+
+  int[] activate(
+      final int[] inputs,
+      final ActivationTracer tracer,
+      final long activationId) {
+    final int[] values = this.makeValues();
+    System.arraycopy(inputs, 0, values, 0, this.inputCount);
+    this.execute(values, this.makeScratch(), tracer, activationId);
+    final int[] result = new int[this.outputSlots.length];
+    this.readOutputs(values, result, 0);
+    return result;
+  }
+
+  void execute(final int[] values, final int[] scratch) {
+    this.execute(values, scratch, null);
+  }
+
+  void execute(final int[] values, final int[] scratch, final boolean[] skippedSteps) {
+    for (int step = 0; step < this.activables.length; step++) {
+      if (skippedSteps != null && skippedSteps[step]) {
+        continue;
+      }
+      final int from = this.stepInputOffsets[step];
+      final int to = this.stepInputOffsets[step + 1];
+      final CyberNeuron neuron = this.neurons[step];
+      if (neuron != null) {
+        for (int i = from; i < to; i++) {
+          scratch[i - from] = values[this.stepInputSlots[i]];
+        }
+        values[this.stepOutputSlots[step]] = neuron.calc(0, scratch);
+      } else {
+        this.executeStep(step, values);
+      }
+    }
+  }
+
+  void execute(
+      final int[] values,
+      final int[] scratch,
+      final ActivationTracer tracer,
+      final long activationId) {
+    for (int step = 0; step < this.activables.length; step++) {
+      final CyberNeuron neuron = this.neurons[step];
+      if (neuron == null) {
+        this.executeStep(step, values);
+        continue;
+      }
+      final int from = this.stepInputOffsets[step];
+      final int to = this.stepInputOffsets[step + 1];
+      for (int i = from; i < to; i++) {
+        scratch[i - from] = values[this.stepInputSlots[i]];
+      }
+      final int sum = neuron.calc(0, scratch);
+      values[this.stepOutputSlots[step]] = sum;
+      tracer.record(activationId, neuron.getUid(), scratch, to - from, sum);
+    }
+  }
+
+  private void executeStep(final int step, final int[] values) {
+    final int from = this.stepInputOffsets[step];
+    final int to = this.stepInputOffsets[step + 1];
+    final int[] stepInputs = new int[to - from];
+    for (int i = from; i < to; i++) {
+      stepInputs[i - from] = values[this.stepInputSlots[i]];
+    }
+    final int[] stepOutputs = this.activables[step].activate(stepInputs);
+    if (stepOutputs.length != this.stepOutputSizes[step]) {
+      throw new IllegalStateException(
+          format("Unexpected number of outputs, detected %d but expected %d",
+              stepOutputs.length, this.stepOutputSizes[step]));
+    }
+    System.arraycopy(stepOutputs, 0, values, this.stepOutputSlots[step], stepOutputs.length);
+  }
+
+  int[] activateSparse(final int[] indexes, final int[] inputValues, final int count) {
+    final int[] values = this.makeValues();
+    final int[] acc = new int[this.activables.length];
+    for (int step = 0; step < this.activables.length; step++) {
+      if (this.neurons[step] != null) {
+        acc[step] = this.neurons[step].getBaseline();
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      final int slot = indexes[i];
+      if (slot < 0 || slot >= this.inputCount) {
+        throw new IndexOutOfBoundsException("Input index is invalid: " + slot);
+      }
+      final int previous = values[slot];
+      final int value = inputValues[i];
+      values[slot] = value;
+      for (int c = this.slotConsumerOffsets[slot]; c < this.slotConsumerOffsets[slot + 1]; c++) {
+        final int step = this.slotConsumerSteps[c];
+        final CyberNeuron neuron = this.neurons[step];
+        if (neuron != null) {
+          if (value < 0 || value >= neuron.getRowLength()) {
+            throw new IllegalArgumentException(
+                format("Input value %d is out of range: %d", slot, value));
+          }
+          final int rowStart = this.slotConsumerPositions[c] * neuron.getRowLength();
+          acc[step] += neuron.getTableValue(rowStart + value)
+              - neuron.getTableValue(rowStart + previous);
+        }
+      }
+    }
+
+    for (int step = 0; step < this.activables.length; step++) {
+      final CyberNeuron neuron = this.neurons[step];
+      final int from = this.stepInputOffsets[step];
+      if (neuron != null) {
+        int sum = acc[step];
+        for (int i = this.stepInternalOffsets[step]; i < this.stepInternalOffsets[step + 1];
+             i++) {
+          final int position = this.stepInternalPositions[i];
+          final int rowStart = position * neuron.getRowLength();
+          sum += neuron.getTableValue(rowStart + values[this.stepInputSlots[from + position]])
+              - neuron.getTableValue(rowStart);
+        }
+        values[this.stepOutputSlots[step]] = sum;
+      } else {
+        final int to = this.stepInputOffsets[step + 1];
+        final int[] stepInputs = new int[to - from];
+        for (int i = from; i < to; i++) {
+          stepInputs[i - from] = values[this.stepInputSlots[i]];
+        }
+        final int[] stepOutputs = this.activables[step].activate(stepInputs);
+        if (stepOutputs.length != this.stepOutputSizes[step]) {
+          throw new IllegalStateException(
+              format("Unexpected number of outputs, detected %d but expected %d",
+                  stepOutputs.length, this.stepOutputSizes[step]));
+        }
+        System.arraycopy(stepOutputs, 0, values, this.stepOutputSlots[step], stepOutputs.length);
+      }
+    }
+    final int[] result = new int[this.outputSlots.length];
+    this.readOutputs(values, result, 0);
+    return result;
+  }
+
+  void readOutputs(final int[] values, final int[] target, final int offset) {
+    for (int i = 0; i < this.outputSlots.length; i++) {
+      target[offset + i] = values[this.outputSlots[i]];
+    }
+  }
+}
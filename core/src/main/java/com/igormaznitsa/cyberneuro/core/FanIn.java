@@ -0,0 +1,71 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.lang.String.format;
+
+import java.util.Random;
+
+@FunctionalInterface
+public interface FanIn {
+
+  static FanIn full() {
+    return (sourceCount, neuronCount, inputSize, sourceIndexes) -> {
+      if (inputSize != sourceCount) {
+        throw new IllegalArgumentException(
+            format("Full fan-in needs %d inputs per neuron but detected %d", sourceCount,
+                inputSize));
+      }
+      int position = 0;
+      for (int n = 0; n < neuronCount; n++) {
+        for (int i = 0; i < inputSize; i++) {
+          sourceIndexes[position++] = i;
+        }
+      }
+    };
+  }
+
+  static FanIn randomK(final long seed) {
+    return (sourceCount, neuronCount, inputSize, sourceIndexes) -> {
+      if (inputSize > sourceCount) {
+        throw new IllegalArgumentException(
+            format("Can't select %d distinct sources among %d", inputSize, sourceCount));
+      }
+      final Random rnd = new Random(seed);
+      final int[] permutation = new int[sourceCount];
+      for (int i = 0; i < sourceCount; i++) {
+        permutation[i] = i;
+      }
+      int position = 0;
+      for (int n = 0; n < neuronCount; n++) {
+        for (int i = 0; i < inputSize; i++) {
+          final int j = i + rnd.nextInt(sourceCount - i);
+          final int swap = permutation[i];
+          permutation[i] = permutation[j];
+          permutation[j] = swap;
+          sourceIndexes[position++] = permutation[i];
+        }
+      }
+    };
+  }
+
+  static FanIn windowed(final int stride) {
+    if (stride < 0) {
+      throw new IllegalArgumentException("Stride must not be negative one");
+    }
+    return (sourceCount, neuronCount, inputSize, sourceIndexes) -> {
+      if ((long) (neuronCount - 1) * stride + inputSize > sourceCount) {
+        throw new IllegalArgumentException(
+            format("Windows of %d with stride %d don't fit %d sources", inputSize, stride,
+                sourceCount));
+      }
+      int position = 0;
+      for (int n = 0; n < neuronCount; n++) {
+        final int start = n * stride;
+        for (int i = 0; i < inputSize; i++) {
+          sourceIndexes[position++] = start + i;
+        }
+      }
+    };
+  }
+
+  void connect(int sourceCount, int neuronCount, int inputSize, int[] sourceIndexes);
+}
@@ -0,0 +1,14 @@
+package com.igormaznitsa.cyberneuro.core;
+
+public enum FootprintCategory {
+  NEURONS,
+  NEURON_TABLES,
+  SHARED_TABLES,
+  PINS,
+  OTHER_ENTITIES,
+  LINKS,
+  LINK_SETS,
+  ENTITY_INDEX,
+  LINK_TRACKING,
+  NESTED_NETS
+}
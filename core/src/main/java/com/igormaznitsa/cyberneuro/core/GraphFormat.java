@@ -0,0 +1,6 @@
+package com.igormaznitsa.cyberneuro.core;
+
+public enum GraphFormat {
+  DOT,
+  EDGE_LIST
+}
@@ -0,0 +1,47 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public final class InProcessShardTransport implements ShardTransport {
+  private final List<CyberNetShard> shards;
+  private final ExecutorService[] executors;
+
+  private InProcessShardTransport(final List<CyberNetShard> shards) {
+    this.shards = List.copyOf(shards);
+    this.executors = new ExecutorService[this.shards.size()];
+    for (int i = 0; i < this.executors.length; i++) {
+      final String name = "cyber-shard-" + i;
+      this.executors[i] = Executors.newSingleThreadExecutor(r -> {
+        final Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  public static InProcessShardTransport of(final List<CyberNetShard> shards) {
+    return new InProcessShardTransport(requireNonNull(shards));
+  }
+
+  @Override
+  public CompletableFuture<int[]> execute(
+      final int shardIndex,
+      final int sampleCount,
+      final int[] inputs) {
+    final CyberNetShard shard = this.shards.get(shardIndex);
+    return CompletableFuture.supplyAsync(() -> shard.execute(sampleCount, inputs),
+        this.executors[shardIndex]);
+  }
+
+  @Override
+  public void close() {
+    for (final ExecutorService executor : this.executors) {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.lang.String.format;
+
+public final class IncrementalCyberNetEvaluator {
+  private final CyberNet net;
+  private ExecutionPlan plan;
+  private int[] values;
+  private int[] accumulators;
+  private boolean[] queued;
+  private int[] heap;
+  private int heapSize;
+  private long lockEpoch;
+
+  private IncrementalCyberNetEvaluator(final CyberNet net, final int[] inputs) {
+    this.net = net;
+    this.usePlan(net.findExecutionPlan());
+    this.reset(inputs);
+  }
+
+  static IncrementalCyberNetEvaluator of(final CyberNet net, final int[] inputs) {
+    return new IncrementalCyberNetEvaluator(net, inputs);
+  }
+
+  public int getInputSize() {
+    return this.plan.getInputCount();
+  }
+
+  public int getOutputSize() {
+    return this.plan.getOutputCount();
+  }
+
+  private void usePlan(final ExecutionPlan newPlan) {
+    this.plan = newPlan;
+    this.values = newPlan.makeValues();
+    this.accumulators = new int[newPlan.getStepCount()];
+    this.queued = new boolean[newPlan.getStepCount()];
+    this.heap = new int[newPlan.getStepCount()];
+    this.heapSize = 0;
+  }
+
+  public void reset(final int[] inputs) {
+    final long epoch = this.net.getLockEpoch().get();
+    if (!this.net.isLockedDeep()) {
+      throw new IllegalStateException("Network and all its entities must be locked");
+    }
+    final ExecutionPlan currentPlan = this.net.findExecutionPlan();
+    if (currentPlan != this.plan) {
+      this.usePlan(currentPlan);
+    }
+    if (inputs.length != this.plan.getInputCount()) {
+      throw new IllegalArgumentException(
+          format("Wrong input length, detected %d but expected %d", inputs.length,
+              this.plan.getInputCount()));
+    }
+    System.arraycopy(inputs, 0, this.values, 0, inputs.length);
+    for (int step = 0; step < this.plan.getStepCount(); step++) {
+      this.queued[step] = false;
+      final CyberNeuron neuron = this.plan.findNeuron(step);
+      if (neuron == null) {
+        this.evaluate(step);
+      } else {
+        final int rowLength = neuron.getRowLength();
+        int acc = 0;
+        int offsetRow = 0;
+        for (int i = this.plan.getStepInputFrom(step); i < this.plan.getStepInputTo(step); i++) {
+          acc += neuron.getTableValue(offsetRow + this.values[this.plan.getStepInputSlot(i)]);
+          offsetRow += rowLength;
+        }
+        this.accumulators[step] = acc;
+        this.values[this.plan.getStepOutputSlot(step)] = acc;
+      }
+    }
+    this.heapSize = 0;
+    this.lockEpoch = epoch;
+  }
+
+  public void setInput(final int index, final int value) {
+    if (index < 0 || index >= this.plan.getInputCount()) {
+      throw new IndexOutOfBoundsException("Input index is invalid: " + index);
+    }
+    final int old = this.values[index];
+    if (old != value) {
+      this.values[index] = value;
+      this.onSlotChanged(index, old, value);
+    }
+  }
+
+  public int[] update(final int[] inputs) {
+    if (inputs.length != this.plan.getInputCount()) {
+      throw new IllegalArgumentException(
+          format("Wrong input length, detected %d but expected %d", inputs.length,
+              this.plan.getInputCount()));
+    }
+    for (int i = 0; i < inputs.length; i++) {
+      this.setInput(i, inputs[i]);
+    }
+    return this.getOutputs();
+  }
+
+  public int getOutput(final int index) {
+    this.propagate();
+    return this.values[this.plan.getOutputSlot(index)];
+  }
+
+  public int[] getOutputs() {
+    this.propagate();
+    final int[] result = new int[this.plan.getOutputCount()];
+    this.plan.readOutputs(this.values, result, 0);
+    return result;
+  }
+
+  private void propagate() {
+    if (this.lockEpoch != this.net.getLockEpoch().get()) {
+      final int[] inputs = new int[this.plan.getInputCount()];
+      System.arraycopy(this.values, 0, inputs, 0, inputs.length);
+      final int inputCount = this.net.findExecutionPlan().getInputCount();
+      if (inputCount != inputs.length) {
+        throw new IllegalStateException(
+            format("Network inputs have been changed, detected %d but expected %d", inputCount,
+                inputs.length));
+      }
+      this.reset(inputs);
+      return;
+    }
+    while (this.heapSize > 0) {
+      final int step = this.poll();
+      final CyberNeuron neuron = this.plan.findNeuron(step);
+      if (neuron == null) {
+        this.evaluate(step);
+      } else {
+        final int slot = this.plan.getStepOutputSlot(step);
+        final int old = this.values[slot];
+        final int value = this.accumulators[step];
+        if (old != value) {
+          this.values[slot] = value;
+          this.onSlotChanged(slot, old, value);
+        }
+      }
+    }
+  }
+
+  private void evaluate(final int step) {
+    final int from = this.plan.getStepInputFrom(step);
+    final int[] stepInputs = new int[this.plan.getStepInputTo(step) - from];
+    for (int i = 0; i < stepInputs.length; i++) {
+      stepInputs[i] = this.values[this.plan.getStepInputSlot(from + i)];
+    }
+    final int[] stepOutputs = this.plan.getActivable(step).activate(stepInputs);
+    final int firstSlot = this.plan.getStepOutputSlot(step);
+    for (int i = 0; i < this.plan.getStepOutputSize(step); i++) {
+      final int old = this.values[firstSlot + i];
+      if (old != stepOutputs[i]) {
+        this.values[firstSlot + i] = stepOutputs[i];
+        this.onSlotChanged(firstSlot + i, old, stepOutputs[i]);
+      }
+    }
+  }
+
+  private void onSlotChanged(final int slot, final int old, final int value) {
+    for (int c = this.plan.getSlotConsumerFrom(slot); c < this.plan.getSlotConsumerTo(slot); c++) {
+      final int step = this.plan.getSlotConsumerStep(c);
+      final CyberNeuron neuron = this.plan.findNeuron(step);
+      if (neuron != null) {
+        final int offsetRow = this.plan.getSlotConsumerPosition(c) * neuron.getRowLength();
+        this.accumulators[step] +=
+            neuron.getTableValue(offsetRow + value) - neuron.getTableValue(offsetRow + old);
+      }
+      this.offer(step);
+    }
+  }
+
+  private void offer(final int step) {
+    if (this.queued[step]) {
+      return;
+    }
+    this.queued[step] = true;
+    int index = this.heapSize++;
+    while (index > 0) {
+      final int parent = (index - 1) >>> 1;
+      if (this.heap[parent] <= step) {
+        break;
+      }
+      this.heap[index] = this.heap[parent];
+      index = parent;
+    }
+    this.heap[index] = step;
+  }
+
+  private int poll() {
+    final int result = this.heap[0];
+    final int last = this.heap[--this.heapSize];
+    int index = 0;
+    while (true) {
+      int child = 2 * index + 1;
+      if (child >= this.heapSize) {
+        break;
+      }
+      if (child + 1 < this.heapSize && this.heap[child + 1] < this.heap[child]) {
+        child++;
+      }
+      if (this.heap[child] >= last) {
+        break;
+      }
+      this.heap[index] = this.heap[child];
+      index = child;
+    }
+    if (this.heapSize > 0) {
+      this.heap[index] = last;
+    }
+    this.queued[result] = false;
+    return result;
+  }
+}
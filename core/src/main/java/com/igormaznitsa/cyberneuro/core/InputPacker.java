@@ -0,0 +1,112 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import java.util.Arrays;
+
+final class InputPacker {
+  static final int UNBOUNDED = 0;
+  static final long INVALID = -1L;
+
+  private final int[] ranges;
+  private final int[] widths;
+  private final int[] wordIndexes;
+  private final int[] shifts;
+  private final int words;
+  private final boolean singleWord;
+
+  private InputPacker(final int[] ranges) {
+    this.ranges = ranges.clone();
+    this.widths = new int[ranges.length];
+    this.wordIndexes = new int[ranges.length];
+    this.shifts = new int[ranges.length];
+
+    int word = 0;
+    int bit = 0;
+    for (int i = 0; i < ranges.length; i++) {
+      final int width = bitsFor(ranges[i]);
+      if (bit + width > Long.SIZE) {
+        word++;
+        bit = 0;
+      }
+      this.widths[i] = width;
+      this.wordIndexes[i] = word;
+      this.shifts[i] = bit;
+      bit += width;
+    }
+    this.words = word + 1;
+    this.singleWord = this.words == 1 && bit < Long.SIZE;
+  }
+
+  static InputPacker of(final int[] ranges) {
+    return new InputPacker(ranges);
+  }
+
+  static InputPacker ofUniform(final int inputSize, final int range) {
+    final int[] ranges = new int[inputSize];
+    Arrays.fill(ranges, range);
+    return new InputPacker(ranges);
+  }
+
+  static int bitsFor(final int range) {
+    if (range == UNBOUNDED) {
+      return Integer.SIZE;
+    }
+    return range <= 2 ? 1 : Integer.SIZE - Integer.numberOfLeadingZeros(range - 1);
+  }
+
+  int getInputSize() {
+    return this.ranges.length;
+  }
+
+  int getWords() {
+    return this.words;
+  }
+
+  int getRange(final int index) {
+    return this.ranges[index];
+  }
+
+  boolean isSingleWord() {
+    return this.singleWord;
+  }
+
+  boolean isInRange(final int index, final int value) {
+    final int range = this.ranges[index];
+    return range == UNBOUNDED || (value >= 0 && value < range);
+  }
+
+  long packSingle(final int[] inputs, final int offset) {
+    long result = 0L;
+    for (int i = 0; i < this.ranges.length; i++) {
+      final int value = inputs[offset + i];
+      if (!this.isInRange(i, value)) {
+        return INVALID;
+      }
+      result |= (value & 0xFFFFFFFFL) << this.shifts[i];
+    }
+    return result;
+  }
+
+  boolean pack(final int[] inputs, final int offset, final long[] target) {
+    Arrays.fill(target, 0, this.words, 0L);
+    for (int i = 0; i < this.ranges.length; i++) {
+      final int value = inputs[offset + i];
+      if (!this.isInRange(i, value)) {
+        return false;
+      }
+      target[this.wordIndexes[i]] |= (value & 0xFFFFFFFFL) << this.shifts[i];
+    }
+    return true;
+  }
+
+  int unpack(final long[] packed, final int index) {
+    final int width = this.widths[index];
+    final long word = packed[this.wordIndexes[index]] >>> this.shifts[index];
+    return width == Integer.SIZE ? (int) word : (int) (word & ((1L << width) - 1L));
+  }
+
+  void unpack(final long[] packed, final int[] target, final int offset) {
+    for (int i = 0; i < this.ranges.length; i++) {
+      target[offset + i] = this.unpack(packed, i);
+    }
+  }
+}
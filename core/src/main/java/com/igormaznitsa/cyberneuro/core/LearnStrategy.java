@@ -63,6 +63,23 @@ public enum LearnStrategy {
     this.changer.accept(neuron, inputs, modifier);
   }
 
+  int[] countRowHits(final int inputSize, final int amount) {
+    final int[] result = new int[inputSize];
+    if (this == SEQUENTIAL) {
+      final int start = amount % inputSize;
+      final int full = amount / inputSize;
+      final int rest = amount % inputSize;
+      for (int row = 0; row < inputSize; row++) {
+        result[row] = full + ((row - start + inputSize) % inputSize < rest ? 1 : 0);
+      }
+    } else {
+      for (int m = 0; m < amount; m++) {
+        result[Internal.RND.nextInt(inputSize)]++;
+      }
+    }
+    return result;
+  }
+
   private static final class Internal {
     private static final Random RND = new Random();
   }
@@ -0,0 +1,25 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class LockEpoch {
+  private final AtomicLong value = new AtomicLong();
+  private final List<LockEpoch> parents = new CopyOnWriteArrayList<>();
+
+  long get() {
+    return this.value.get();
+  }
+
+  void addParent(final LockEpoch parent) {
+    this.parents.add(parent);
+  }
+
+  void increment() {
+    this.value.incrementAndGet();
+    for (final LockEpoch parent : this.parents) {
+      parent.increment();
+    }
+  }
+}
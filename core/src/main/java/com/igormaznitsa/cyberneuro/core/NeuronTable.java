@@ -0,0 +1,262 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+abstract class NeuronTable {
+
+  abstract TableLayout getLayout();
+
+  abstract int get(int index);
+
+  abstract void set(int index, int value);
+
+  abstract long getOwnedBytes();
+
+  abstract byte[] findSharedArray();
+
+  abstract NeuronTable makeCopy();
+
+  static final class Sparse extends NeuronTable {
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final CanonicalPattern defaults;
+    private int[] keys;
+    private byte[] values;
+    private int size;
+
+    Sparse(final int length) {
+      this.defaults = CanonicalPattern.of(length);
+    }
+
+    private Sparse(final Sparse source) {
+      this.defaults = source.defaults;
+      this.keys = source.keys == null ? null : source.keys.clone();
+      this.values = source.values == null ? null : source.values.clone();
+      this.size = source.size;
+    }
+
+    private static int findSlot(final int[] keys, final int index) {
+      final int mask = keys.length - 1;
+      int slot = (index * 0x9E3779B9) >>> (Integer.numberOfLeadingZeros(keys.length) + 1);
+      while (keys[slot] != EMPTY && keys[slot] != index) {
+        slot = (slot + 1) & mask;
+      }
+      return slot;
+    }
+
+    int getTrainedCells() {
+      return this.size;
+    }
+
+    @Override
+    TableLayout getLayout() {
+      return TableLayout.sparse();
+    }
+
+    @Override
+    int get(final int index) {
+      final int[] currentKeys = this.keys;
+      if (currentKeys != null) {
+        final int slot = findSlot(currentKeys, index);
+        if (currentKeys[slot] == index) {
+          return this.values[slot];
+        }
+      }
+      return this.defaults.get(index);
+    }
+
+    @Override
+    void set(final int index, final int value) {
+      if (index < 0 || index >= this.defaults.length) {
+        throw new ArrayIndexOutOfBoundsException(index);
+      }
+      final byte defaultValue = this.defaults.get(index);
+      if (this.keys == null) {
+        if (defaultValue == (byte) value) {
+          return;
+        }
+        this.keys = new int[INITIAL_CAPACITY];
+        Arrays.fill(this.keys, EMPTY);
+        this.values = new byte[INITIAL_CAPACITY];
+      }
+      int slot = findSlot(this.keys, index);
+      if (this.keys[slot] == index) {
+        this.values[slot] = (byte) value;
+        return;
+      }
+      if (defaultValue == (byte) value) {
+        return;
+      }
+      if ((this.size + 1) * 2 > this.keys.length) {
+        this.grow();
+        slot = findSlot(this.keys, index);
+      }
+      this.keys[slot] = index;
+      this.values[slot] = (byte) value;
+      this.size++;
+    }
+
+    private void grow() {
+      final int[] oldKeys = this.keys;
+      final byte[] oldValues = this.values;
+      this.keys = new int[oldKeys.length * 2];
+      Arrays.fill(this.keys, EMPTY);
+      this.values = new byte[oldValues.length * 2];
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != EMPTY) {
+          final int slot = findSlot(this.keys, oldKeys[i]);
+          this.keys[slot] = oldKeys[i];
+          this.values[slot] = oldValues[i];
+        }
+      }
+    }
+
+    @Override
+    long getOwnedBytes() {
+      return this.keys == null ? 0L : (long) this.keys.length * (Integer.BYTES + 1);
+    }
+
+    @Override
+    byte[] findSharedArray() {
+      return this.defaults.values;
+    }
+
+    @Override
+    NeuronTable makeCopy() {
+      return new Sparse(this);
+    }
+  }
+
+  static final class Bucketed extends NeuronTable {
+    private final TableLayout layout;
+    private final int rowLength;
+    private final int bucketWidth;
+    private final int bucketsPerRow;
+    private byte[] buckets;
+    private boolean shared;
+
+    Bucketed(final TableLayout layout, final int inputSize, final int rowLength) {
+      this.layout = layout;
+      this.rowLength = rowLength;
+      this.bucketWidth = layout.getBucketWidth();
+      this.bucketsPerRow = (rowLength + this.bucketWidth - 1) / this.bucketWidth;
+      this.buckets = CyberNeuron.findCanonicalTable(inputSize * this.bucketsPerRow);
+      this.shared = true;
+    }
+
+    private Bucketed(final Bucketed source) {
+      this.layout = source.layout;
+      this.rowLength = source.rowLength;
+      this.bucketWidth = source.bucketWidth;
+      this.bucketsPerRow = source.bucketsPerRow;
+      this.shared = source.shared;
+      this.buckets = source.shared ? source.buckets : source.buckets.clone();
+    }
+
+    private int toBucket(final int index) {
+      if (index < 0) {
+        throw new ArrayIndexOutOfBoundsException(index);
+      }
+      final int row = index / this.rowLength;
+      return row * this.bucketsPerRow + (index - row * this.rowLength) / this.bucketWidth;
+    }
+
+    @Override
+    TableLayout getLayout() {
+      return this.layout;
+    }
+
+    @Override
+    int get(final int index) {
+      return this.buckets[this.toBucket(index)];
+    }
+
+    @Override
+    void set(final int index, final int value) {
+      final int bucket = this.toBucket(index);
+      if (this.shared) {
+        this.buckets = this.buckets.clone();
+        this.shared = false;
+      }
+      this.buckets[bucket] = (byte) value;
+    }
+
+    @Override
+    long getOwnedBytes() {
+      return this.shared ? 0L : this.buckets.length;
+    }
+
+    @Override
+    byte[] findSharedArray() {
+      return this.shared ? this.buckets : null;
+    }
+
+    @Override
+    NeuronTable makeCopy() {
+      return new Bucketed(this);
+    }
+  }
+
+  static final class CanonicalPattern {
+    private static final Map<Integer, CanonicalPattern> PATTERNS = new ConcurrentHashMap<>();
+
+    private final int length;
+    private final int tail;
+    private final int cycle;
+    private final byte[] values;
+
+    private CanonicalPattern(final int length) {
+      final int first = CyberNeuron.nextCanonicalSeed(length);
+      int power = 1;
+      int cycleLength = 1;
+      int tortoise = first;
+      int hare = CyberNeuron.nextCanonicalSeed(first);
+      while (tortoise != hare) {
+        if (power == cycleLength) {
+          tortoise = hare;
+          power <<= 1;
+          cycleLength = 0;
+        }
+        hare = CyberNeuron.nextCanonicalSeed(hare);
+        cycleLength++;
+      }
+      tortoise = first;
+      hare = first;
+      for (int i = 0; i < cycleLength; i++) {
+        hare = CyberNeuron.nextCanonicalSeed(hare);
+      }
+      int tailLength = 0;
+      while (tortoise != hare) {
+        tortoise = CyberNeuron.nextCanonicalSeed(tortoise);
+        hare = CyberNeuron.nextCanonicalSeed(hare);
+        tailLength++;
+      }
+      this.length = length;
+      this.tail = tailLength;
+      this.cycle = cycleLength;
+      this.values = new byte[(int) Math.min(length, (long) tailLength + cycleLength)];
+      int seed = first;
+      for (int i = 0; i < this.values.length; i++) {
+        this.values[i] = (byte) seed;
+        seed = CyberNeuron.nextCanonicalSeed(seed);
+      }
+    }
+
+    static CanonicalPattern of(final int length) {
+      return PATTERNS.computeIfAbsent(length, CanonicalPattern::new);
+    }
+
+    byte get(final int index) {
+      if (index < this.values.length) {
+        return this.values[index];
+      }
+      if (index >= this.length) {
+        throw new ArrayIndexOutOfBoundsException(index);
+      }
+      return this.values[this.tail + (index - this.tail) % this.cycle];
+    }
+  }
+}
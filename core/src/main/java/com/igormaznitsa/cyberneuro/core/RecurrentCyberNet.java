@@ -0,0 +1,254 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.lang.String.format;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class RecurrentCyberNet {
+  private final int inputCount;
+  private final int[] outputSlots;
+  private final IsActivable[] activables;
+  private final CyberNeuron[] neurons;
+  private final int[] stepInputOffsets;
+  private final int[] stepInputSlots;
+  private final int[] stepOutputSlots;
+  private final int[] stepOutputSizes;
+  private final int delayedLinkCount;
+  private final int[] scratch;
+  private int[] current;
+  private int[] previous;
+
+  private RecurrentCyberNet(
+      final int inputCount,
+      final int slotCount,
+      final int[] outputSlots,
+      final List<IsActivable> steps,
+      final List<int[]> stepInputs,
+      final List<int[]> stepOutputs,
+      final int delayedLinkCount) {
+    this.inputCount = inputCount;
+    this.outputSlots = outputSlots;
+    this.activables = steps.toArray(new IsActivable[0]);
+    this.neurons = new CyberNeuron[this.activables.length];
+    this.stepInputOffsets = new int[this.activables.length + 1];
+    this.stepOutputSlots = new int[this.activables.length];
+    this.stepOutputSizes = new int[this.activables.length];
+    int total = 0;
+    int max = 0;
+    for (int i = 0; i < this.activables.length; i++) {
+      if (this.activables[i] instanceof CyberNeuron) {
+        this.neurons[i] = (CyberNeuron) this.activables[i];
+      }
+      this.stepInputOffsets[i] = total;
+      total += stepInputs.get(i).length;
+      max = Math.max(max, stepInputs.get(i).length);
+      this.stepOutputSlots[i] = stepOutputs.get(i)[0];
+      this.stepOutputSizes[i] = stepOutputs.get(i)[1];
+    }
+    this.stepInputOffsets[this.activables.length] = total;
+    this.stepInputSlots = new int[total];
+    for (int i = 0; i < this.activables.length; i++) {
+      final int[] slots = stepInputs.get(i);
+      System.arraycopy(slots, 0, this.stepInputSlots, this.stepInputOffsets[i], slots.length);
+    }
+    this.delayedLinkCount = delayedLinkCount;
+    this.scratch = new int[max];
+    this.current = new int[slotCount];
+    this.previous = new int[slotCount];
+  }
+
+  static RecurrentCyberNet of(final CyberNet net) {
+    final Map<HasInput, CyberLink[]> incoming = new HashMap<>();
+    final Map<HasOutput, Integer> slots = new HashMap<>();
+    final List<CyberNetOutputPin> outputPins = new ArrayList<>();
+    final List<HasInput> activables = new ArrayList<>();
+    int slotCounter = 0;
+    for (final CyberNetEntity entity : net.getEntities()) {
+      if (entity instanceof CyberNetInputPin) {
+        slots.put((HasOutput) entity, slotCounter++);
+      }
+    }
+    final int inputCount = slotCounter;
+    for (final CyberNetEntity entity : net.getEntities()) {
+      for (final CyberLink link : net.getOutgoingLinks(entity)) {
+        incoming.computeIfAbsent(link.target(), t -> new CyberLink[t.getInputSize()])
+            [link.targetIndex()] = link;
+      }
+      if (entity instanceof CyberNetOutputPin) {
+        outputPins.add((CyberNetOutputPin) entity);
+      } else if (!(entity instanceof CyberNetInputPin)) {
+        if (!(entity instanceof IsActivable) || !(entity instanceof HasOutput)) {
+          throw new IllegalStateException("Unexpected entity in network: " + entity);
+        }
+        slots.put((HasOutput) entity, slotCounter);
+        slotCounter += ((HasOutput) entity).getOutputSize();
+        activables.add(entity);
+      }
+    }
+
+    final List<HasInput> roots = new ArrayList<>();
+    final int[] outputSlots = new int[outputPins.size()];
+    for (int o = 0; o < outputPins.size(); o++) {
+      final CyberLink link = findInputLink(incoming, outputPins.get(o), 0);
+      outputSlots[o] = slots.get(link.source()) + link.sourceIndex();
+      if (!(link.source() instanceof CyberNetInputPin)) {
+        roots.add((HasInput) link.source());
+      }
+    }
+    roots.addAll(activables);
+
+    final List<IsActivable> steps = new ArrayList<>();
+    final List<int[]> stepInputs = new ArrayList<>();
+    final List<int[]> stepOutputs = new ArrayList<>();
+    final Map<HasInput, Boolean> visiting = new HashMap<>();
+    int delayed = 0;
+    for (final HasInput root : roots) {
+      if (visiting.containsKey(root)) {
+        continue;
+      }
+      final Deque<HasInput> stack = new ArrayDeque<>();
+      stack.push(root);
+      while (!stack.isEmpty()) {
+        final HasInput current = stack.peek();
+        final Boolean state = visiting.get(current);
+        if (state == null) {
+          visiting.put(current, Boolean.TRUE);
+          for (int i = current.getInputSize() - 1; i >= 0; i--) {
+            final HasOutput source = findInputLink(incoming, current, i).source();
+            if (!(source instanceof CyberNetInputPin) && !visiting.containsKey(source)) {
+              stack.push((HasInput) source);
+            }
+          }
+        } else if (state == Boolean.TRUE) {
+          stack.pop();
+          final int[] inputSlots = new int[current.getInputSize()];
+          for (int i = 0; i < inputSlots.length; i++) {
+            final CyberLink link = findInputLink(incoming, current, i);
+            final int slot = slots.get(link.source()) + link.sourceIndex();
+            if (link.source() instanceof CyberNetInputPin
+                || visiting.get(link.source()) == Boolean.FALSE) {
+              inputSlots[i] = slot;
+            } else {
+              inputSlots[i] = ~slot;
+              delayed++;
+            }
+          }
+          visiting.put(current, Boolean.FALSE);
+          steps.add((IsActivable) current);
+          stepInputs.add(inputSlots);
+          stepOutputs.add(new int[] {slots.get((HasOutput) current),
+              ((HasOutput) current).getOutputSize()});
+        } else {
+          stack.pop();
+        }
+      }
+    }
+    return new RecurrentCyberNet(inputCount, slotCounter, outputSlots, steps, stepInputs,
+        stepOutputs, delayed);
+  }
+
+  private static CyberLink findInputLink(
+      final Map<HasInput, CyberLink[]> incoming,
+      final HasInput target,
+      final int index) {
+    final CyberLink[] links = incoming.get(target);
+    if (links == null || links[index] == null) {
+      throw new IllegalStateException(format("Input %d of %s is not linked", index, target));
+    }
+    return links[index];
+  }
+
+  public int getInputSize() {
+    return this.inputCount;
+  }
+
+  public int getOutputSize() {
+    return this.outputSlots.length;
+  }
+
+  public int getDelayedLinkCount() {
+    return this.delayedLinkCount;
+  }
+
+  public void reset() {
+    for (int i = 0; i < this.current.length; i++) {
+      this.current[i] = 0;
+      this.previous[i] = 0;
+    }
+  }
+
+  public int[] step(final int[] inputs) {
+    if (inputs.length != this.inputCount) {
+      throw new IllegalArgumentException(
+          format("Wrong input length, detected %d but expected %d", inputs.length,
+              this.inputCount));
+    }
+    final int[] result = new int[this.outputSlots.length];
+    this.step(inputs, 0, result, 0);
+    return result;
+  }
+
+  public int[] run(final int[] sequence, final int steps) {
+    final int[] result = new int[steps * this.outputSlots.length];
+    this.run(sequence, steps, result);
+    return result;
+  }
+
+  public void run(final int[] sequence, final int steps, final int[] outputs) {
+    if (steps < 0 || (long) steps * this.inputCount > sequence.length) {
+      throw new IllegalArgumentException(
+          format("Wrong sequence length, detected %d but expected %d", sequence.length,
+              (long) steps * this.inputCount));
+    }
+    if ((long) steps * this.outputSlots.length > outputs.length) {
+      throw new IllegalArgumentException(
+          format("Wrong output length, detected %d but expected %d", outputs.length,
+              (long) steps * this.outputSlots.length));
+    }
+    for (int t = 0; t < steps; t++) {
+      this.step(sequence, t * this.inputCount, outputs, t * this.outputSlots.length);
+    }
+  }
+
+  private void step(
+      final int[] inputs,
+      final int inputOffset,
+      final int[] outputs,
+      final int outputOffset) {
+    final int[] swap = this.previous;
+    this.previous = this.current;
+    this.current = swap;
+    final int[] values = this.current;
+    final int[] before = this.previous;
+    System.arraycopy(inputs, inputOffset, values, 0, this.inputCount);
+    for (int step = 0; step < this.activables.length; step++) {
+      final int from = this.stepInputOffsets[step];
+      final int to = this.stepInputOffsets[step + 1];
+      final CyberNeuron neuron = this.neurons[step];
+      final int[] stepInputs = neuron == null ? new int[to - from] : this.scratch;
+      for (int i = from; i < to; i++) {
+        final int slot = this.stepInputSlots[i];
+        stepInputs[i - from] = slot >= 0 ? values[slot] : before[~slot];
+      }
+      if (neuron != null) {
+        values[this.stepOutputSlots[step]] = neuron.calc(0, stepInputs);
+      } else {
+        final int[] stepOutputs = this.activables[step].activate(stepInputs);
+        if (stepOutputs.length != this.stepOutputSizes[step]) {
+          throw new IllegalStateException(
+              format("Unexpected number of outputs, detected %d but expected %d",
+                  stepOutputs.length, this.stepOutputSizes[step]));
+        }
+        System.arraycopy(stepOutputs, 0, values, this.stepOutputSlots[step], stepOutputs.length);
+      }
+    }
+    for (int i = 0; i < this.outputSlots.length; i++) {
+      outputs[outputOffset + i] = values[this.outputSlots[i]];
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+public final class ShardServer implements Closeable {
+  static final int ERROR_FRAME = -1;
+
+  private final CyberNetShard shard;
+  private final ServerSocket serverSocket;
+  private final Consumer<? super IOException> errorHandler;
+  private final Thread acceptThread;
+
+  private ShardServer(
+      final CyberNetShard shard,
+      final ServerSocket serverSocket,
+      final Consumer<? super IOException> errorHandler) {
+    this.shard = shard;
+    this.serverSocket = serverSocket;
+    this.errorHandler = errorHandler;
+    this.acceptThread = new Thread(this::acceptLoop, "cyber-shard-server");
+    this.acceptThread.setDaemon(true);
+  }
+
+  public static ShardServer start(final CyberNetShard shard, final InetSocketAddress address)
+      throws IOException {
+    return start(shard, address, ex -> {
+    });
+  }
+
+  public static ShardServer start(
+      final CyberNetShard shard,
+      final InetSocketAddress address,
+      final Consumer<? super IOException> errorHandler) throws IOException {
+    requireNonNull(errorHandler);
+    final ServerSocket socket = new ServerSocket();
+    try {
+      socket.bind(requireNonNull(address));
+    } catch (IOException ex) {
+      socket.close();
+      throw ex;
+    }
+    final ShardServer result = new ShardServer(requireNonNull(shard), socket, errorHandler);
+    result.acceptThread.start();
+    return result;
+  }
+
+  public static ShardServer startLoopback(final CyberNetShard shard) throws IOException {
+    return start(shard, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+  }
+
+  public static void main(final String... args) throws Exception {
+    if (args.length != 2) {
+      System.err.println("Usage: ShardServer <shard file> <port>");
+      System.exit(1);
+    }
+    final CyberNetShard shard;
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(Path.of(args[0]))))) {
+      shard = CyberNetShard.readFrom(in);
+    }
+    final ShardServer server = start(shard, new InetSocketAddress(Integer.parseInt(args[1])),
+        ex -> System.err.println("Shard server error: " + ex));
+    System.out.println("Shard server started on port " + server.getPort());
+    server.acceptThread.join();
+  }
+
+  public int getPort() {
+    return this.serverSocket.getLocalPort();
+  }
+
+  private void acceptLoop() {
+    while (!this.serverSocket.isClosed()) {
+      try {
+        final Socket socket = this.serverSocket.accept();
+        final Thread handler = new Thread(() -> this.serve(socket), "cyber-shard-connection");
+        handler.setDaemon(true);
+        handler.start();
+      } catch (IOException ex) {
+        if (!this.serverSocket.isClosed()) {
+          this.errorHandler.accept(ex);
+        }
+      }
+    }
+  }
+
+  private void serve(final Socket socket) {
+    try (socket;
+         DataInputStream in = new DataInputStream(
+             new BufferedInputStream(socket.getInputStream()));
+         DataOutputStream out = new DataOutputStream(
+             new BufferedOutputStream(socket.getOutputStream()))) {
+      while (true) {
+        final int sampleCount;
+        try {
+          sampleCount = in.readInt();
+        } catch (EOFException ex) {
+          return;
+        }
+        final int[] inputs = new int[in.readInt()];
+        for (int i = 0; i < inputs.length; i++) {
+          inputs[i] = in.readInt();
+        }
+        final int[] result;
+        try {
+          result = this.shard.execute(sampleCount, inputs);
+        } catch (RuntimeException ex) {
+          out.writeInt(ERROR_FRAME);
+          out.writeUTF(String.valueOf(ex));
+          out.flush();
+          continue;
+        }
+        out.writeInt(result.length);
+        for (final int value : result) {
+          out.writeInt(value);
+        }
+        out.flush();
+      }
+    } catch (IOException ex) {
+      if (!this.serverSocket.isClosed()) {
+        this.errorHandler.accept(ex);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.serverSocket.close();
+  }
+}
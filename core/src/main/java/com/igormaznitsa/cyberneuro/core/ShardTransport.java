@@ -0,0 +1,9 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+
+public interface ShardTransport extends Closeable {
+
+  CompletableFuture<int[]> execute(int shardIndex, int sampleCount, int[] inputs);
+}
@@ -0,0 +1,61 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import java.util.Arrays;
+
+final class TableJournal {
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int EMPTY = -1;
+
+  private int[] touched = makeTouched(INITIAL_CAPACITY * 2);
+  private int[] indexes = new int[INITIAL_CAPACITY];
+  private byte[] values = new byte[INITIAL_CAPACITY];
+  private int size;
+
+  private static int[] makeTouched(final int capacity) {
+    final int[] result = new int[capacity];
+    Arrays.fill(result, EMPTY);
+    return result;
+  }
+
+  private static int findSlot(final int[] keys, final int index) {
+    final int mask = keys.length - 1;
+    int slot = (index * 0x9E3779B9) >>> (Integer.numberOfLeadingZeros(keys.length) + 1);
+    while (keys[slot] != EMPTY && keys[slot] != index) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  void record(final int index, final int oldValue) {
+    final int slot = findSlot(this.touched, index);
+    if (this.touched[slot] == index) {
+      return;
+    }
+    if (this.size == this.indexes.length) {
+      this.indexes = Arrays.copyOf(this.indexes, this.size * 2);
+      this.values = Arrays.copyOf(this.values, this.size * 2);
+      this.touched = makeTouched(this.indexes.length * 2);
+      for (int i = 0; i < this.size; i++) {
+        this.touched[findSlot(this.touched, this.indexes[i])] = this.indexes[i];
+      }
+      this.touched[findSlot(this.touched, index)] = index;
+    } else {
+      this.touched[slot] = index;
+    }
+    this.indexes[this.size] = index;
+    this.values[this.size] = (byte) oldValue;
+    this.size++;
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  int getIndex(final int position) {
+    return this.indexes[position];
+  }
+
+  int getValue(final int position) {
+    return this.values[position];
+  }
+}
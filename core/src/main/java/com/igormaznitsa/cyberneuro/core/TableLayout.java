@@ -0,0 +1,80 @@
+package com.igormaznitsa.cyberneuro.core;
+
+public final class TableLayout {
+  private static final TableLayout DENSE = new TableLayout(Kind.DENSE, 1);
+  private static final TableLayout SPARSE = new TableLayout(Kind.SPARSE, 1);
+
+  private final Kind kind;
+  private final int bucketWidth;
+
+  private TableLayout(final Kind kind, final int bucketWidth) {
+    this.kind = kind;
+    this.bucketWidth = bucketWidth;
+  }
+
+  public static TableLayout dense() {
+    return DENSE;
+  }
+
+  public static TableLayout sparse() {
+    return SPARSE;
+  }
+
+  public static TableLayout bucketed(final int bucketWidth) {
+    if (bucketWidth <= 0) {
+      throw new IllegalArgumentException("Bucket width must be positive one");
+    }
+    return bucketWidth == 1 ? DENSE : new TableLayout(Kind.BUCKETED, bucketWidth);
+  }
+
+  public boolean isDense() {
+    return this.kind == Kind.DENSE;
+  }
+
+  public boolean isSparse() {
+    return this.kind == Kind.SPARSE;
+  }
+
+  public int getBucketWidth() {
+    return this.bucketWidth;
+  }
+
+  NeuronTable makeTable(final int inputSize, final int rowLength) {
+    switch (this.kind) {
+      case SPARSE:
+        return new NeuronTable.Sparse(inputSize * rowLength);
+      case BUCKETED:
+        return new NeuronTable.Bucketed(this, inputSize, rowLength);
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return this.kind.hashCode() * 31 + this.bucketWidth;
+  }
+
+  @Override
+  public boolean equals(final Object object) {
+    if (object == this) {
+      return true;
+    }
+    if (object instanceof TableLayout) {
+      final TableLayout that = (TableLayout) object;
+      return this.kind == that.kind && this.bucketWidth == that.bucketWidth;
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return this.kind == Kind.BUCKETED ? "BUCKETED(" + this.bucketWidth + ')' : this.kind.name();
+  }
+
+  private enum Kind {
+    DENSE,
+    SPARSE,
+    BUCKETED
+  }
+}
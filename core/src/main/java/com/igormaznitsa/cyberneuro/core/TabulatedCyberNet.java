@@ -0,0 +1,119 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.lang.String.format;
+
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+public final class TabulatedCyberNet implements IsActivable {
+  private static final int ROWS_PER_TASK = 1024;
+
+  private final int[] ranges;
+  private final int[] strides;
+  private final int outputSize;
+  private final int[] table;
+
+  private TabulatedCyberNet(
+      final int[] ranges,
+      final int[] strides,
+      final int outputSize,
+      final int[] table) {
+    this.ranges = ranges;
+    this.strides = strides;
+    this.outputSize = outputSize;
+    this.table = table;
+  }
+
+  static Optional<TabulatedCyberNet> tabulate(
+      final ExecutionPlan plan,
+      final int[] ranges,
+      final long memoryBudgetBytes) {
+    final int outputSize = plan.getOutputCount();
+    final int[] strides = new int[ranges.length];
+    final long maxCells = Math.min(memoryBudgetBytes / Integer.BYTES, Integer.MAX_VALUE - 8);
+    long rows = 1L;
+    for (int i = 0; i < ranges.length; i++) {
+      if (ranges[i] == InputPacker.UNBOUNDED) {
+        return Optional.empty();
+      }
+      strides[i] = (int) rows;
+      rows *= ranges[i];
+      if (rows * outputSize > maxCells) {
+        return Optional.empty();
+      }
+    }
+    if (rows * outputSize > maxCells) {
+      return Optional.empty();
+    }
+
+    final int rowCount = (int) rows;
+    final int[] table = new int[rowCount * outputSize];
+    final int tasks = (rowCount + ROWS_PER_TASK - 1) / ROWS_PER_TASK;
+    IntStream.range(0, tasks).parallel().forEach(task -> {
+      final int from = task * ROWS_PER_TASK;
+      final int to = Math.min(rowCount, from + ROWS_PER_TASK);
+      final int[] inputs = new int[ranges.length];
+      int rest = from;
+      for (int i = 0; i < ranges.length; i++) {
+        inputs[i] = rest % ranges[i];
+        rest /= ranges[i];
+      }
+      final int[] values = plan.makeValues();
+      final int[] scratch = plan.makeScratch();
+      for (int row = from; row < to; row++) {
+        System.arraycopy(inputs, 0, values, 0, inputs.length);
+        plan.execute(values, scratch);
+        plan.readOutputs(values, table, row * outputSize);
+        for (int i = 0; i < inputs.length && ++inputs[i] == ranges[i]; i++) {
+          inputs[i] = 0;
+        }
+      }
+    });
+    return Optional.of(new TabulatedCyberNet(ranges.clone(), strides, outputSize, table));
+  }
+
+  public int getInputSize() {
+    return this.ranges.length;
+  }
+
+  public int getOutputSize() {
+    return this.outputSize;
+  }
+
+  public int getRowCount() {
+    return this.table.length / Math.max(1, this.outputSize);
+  }
+
+  private int findRow(final int[] inputs) {
+    if (inputs.length != this.ranges.length) {
+      throw new IllegalArgumentException(
+          format("Wrong input length, detected %d but expected %d", inputs.length,
+              this.ranges.length));
+    }
+    int row = 0;
+    for (int i = 0; i < inputs.length; i++) {
+      final int value = inputs[i];
+      if (value < 0 || value >= this.ranges[i]) {
+        throw new IllegalArgumentException(
+            format("Input %d is out of tabulated range: %d", i, value));
+      }
+      row += value * this.strides[i];
+    }
+    return row;
+  }
+
+  public int activate(final int[] inputs, final int outputIndex) {
+    if (outputIndex < 0 || outputIndex >= this.outputSize) {
+      throw new IndexOutOfBoundsException("Output index is invalid");
+    }
+    return this.table[this.findRow(inputs) * this.outputSize + outputIndex];
+  }
+
+  @Override
+  public int[] activate(final int[] inputs) {
+    final int[] result = new int[this.outputSize];
+    System.arraycopy(this.table, this.findRow(inputs) * this.outputSize, result, 0,
+        this.outputSize);
+    return result;
+  }
+}
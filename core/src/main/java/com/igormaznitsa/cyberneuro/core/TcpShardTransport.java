@@ -0,0 +1,147 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public final class TcpShardTransport implements ShardTransport {
+  private final Connection[] connections;
+
+  private TcpShardTransport(final Connection[] connections) {
+    this.connections = connections;
+  }
+
+  public static TcpShardTransport connect(final List<InetSocketAddress> addresses)
+      throws IOException {
+    final Connection[] connections = new Connection[addresses.size()];
+    try {
+      for (int i = 0; i < connections.length; i++) {
+        connections[i] = new Connection(addresses.get(i));
+      }
+    } catch (IOException ex) {
+      for (final Connection connection : connections) {
+        if (connection != null) {
+          connection.close();
+        }
+      }
+      throw ex;
+    }
+    return new TcpShardTransport(connections);
+  }
+
+  @Override
+  public CompletableFuture<int[]> execute(
+      final int shardIndex,
+      final int sampleCount,
+      final int[] inputs) {
+    return this.connections[shardIndex].send(sampleCount, inputs);
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (final Connection connection : this.connections) {
+      connection.close();
+    }
+  }
+
+  private static final class Connection {
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+    private final Queue<CompletableFuture<int[]>> pending = new ConcurrentLinkedQueue<>();
+    private volatile IOException failure;
+
+    private Connection(final InetSocketAddress address) throws IOException {
+      this.socket = new Socket();
+      try {
+        this.socket.setTcpNoDelay(true);
+        this.socket.connect(address);
+        this.out = new DataOutputStream(new BufferedOutputStream(this.socket.getOutputStream()));
+        this.in = new DataInputStream(new BufferedInputStream(this.socket.getInputStream()));
+      } catch (IOException ex) {
+        this.socket.close();
+        throw ex;
+      }
+      final Thread reader = new Thread(this::readLoop, "cyber-shard-client");
+      reader.setDaemon(true);
+      reader.start();
+    }
+
+    private CompletableFuture<int[]> send(final int sampleCount, final int[] inputs) {
+      final CompletableFuture<int[]> result = new CompletableFuture<>();
+      synchronized (this.out) {
+        if (this.failure != null) {
+          result.completeExceptionally(this.failure);
+          return result;
+        }
+        this.pending.add(result);
+        try {
+          this.out.writeInt(sampleCount);
+          this.out.writeInt(inputs.length);
+          for (final int value : inputs) {
+            this.out.writeInt(value);
+          }
+          this.out.flush();
+        } catch (IOException ex) {
+          this.fail(ex);
+        }
+      }
+      return result;
+    }
+
+    private void readLoop() {
+      try {
+        while (true) {
+          final int length = this.in.readInt();
+          if (length == ShardServer.ERROR_FRAME) {
+            final String message = this.in.readUTF();
+            this.pollPending().completeExceptionally(
+                new IllegalStateException("Shard server failed: " + message));
+            continue;
+          }
+          if (length < 0) {
+            throw new IOException("Negative response length: " + length);
+          }
+          final int[] result = new int[length];
+          for (int i = 0; i < result.length; i++) {
+            result[i] = this.in.readInt();
+          }
+          this.pollPending().complete(result);
+        }
+      } catch (IOException ex) {
+        this.fail(ex);
+      }
+    }
+
+    private CompletableFuture<int[]> pollPending() throws IOException {
+      final CompletableFuture<int[]> future = this.pending.poll();
+      if (future == null) {
+        throw new IOException("Unexpected response from shard server");
+      }
+      return future;
+    }
+
+    private void fail(final IOException ex) {
+      synchronized (this.out) {
+        this.failure = ex;
+        CompletableFuture<int[]> future;
+        while ((future = this.pending.poll()) != null) {
+          future.completeExceptionally(new UncheckedIOException(ex));
+        }
+      }
+    }
+
+    private void close() throws IOException {
+      this.socket.close();
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package com.igormaznitsa.cyberneuro.core;
+
+final class UidAllocator {
+  static final int BLOCK_SIZE = 1024;
+
+  private static final ThreadLocal<long[]> BLOCK = ThreadLocal.withInitial(() -> new long[2]);
+
+  private UidAllocator() {
+  }
+
+  static long next() {
+    final long[] block = BLOCK.get();
+    if (block[0] == block[1]) {
+      final long start = HasUid.UID_GENERATOR.getAndAdd(BLOCK_SIZE);
+      block[0] = start;
+      block[1] = start + BLOCK_SIZE;
+    }
+    return ++block[0];
+  }
+}
@@ -0,0 +1,150 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+final class WideNeuronEvaluator {
+  static final int DEFAULT_MIN_ROWS_PER_TASK = 8192;
+  private static final int TASKS_PER_THREAD = 4;
+
+  private final ForkJoinPool pool;
+  private final int minRowsPerTask;
+
+  private WideNeuronEvaluator(final ForkJoinPool pool, final int minRowsPerTask) {
+    this.pool = requireNonNull(pool);
+    this.minRowsPerTask = minRowsPerTask;
+  }
+
+  static WideNeuronEvaluator of(final ForkJoinPool pool, final int minRowsPerTask) {
+    if (minRowsPerTask <= 0) {
+      throw new IllegalArgumentException("Min rows per task must be positive one");
+    }
+    return new WideNeuronEvaluator(pool, minRowsPerTask);
+  }
+
+  ForkJoinPool getPool() {
+    return this.pool;
+  }
+
+  int getMinRowsPerTask() {
+    return this.minRowsPerTask;
+  }
+
+  int findRowsPerTask(final int rows) {
+    final int parallelism = this.pool.getParallelism();
+    if (parallelism <= 1 || rows < this.minRowsPerTask * 2) {
+      return -1;
+    }
+    final int tasks = Math.min(parallelism * TASKS_PER_THREAD, rows / this.minRowsPerTask);
+    return (rows + tasks - 1) / tasks;
+  }
+
+  private <T> T invoke(final ForkJoinTask<T> task) {
+    return ForkJoinTask.inForkJoinPool() ? task.invoke() : this.pool.invoke(task);
+  }
+
+  int calc(
+      final byte[] table,
+      final int rowLength,
+      final int inputSize,
+      final int offset,
+      final int[] inputs,
+      final int rowsPerTask) {
+    return this.invoke(
+        new SumTask(table, rowLength, offset, inputs, null, false, 0, inputSize, rowsPerTask));
+  }
+
+  int apply(
+      final byte[] table,
+      final int rowLength,
+      final int[] inputs,
+      final int[] hits,
+      final boolean increment,
+      final int rowsPerTask) {
+    return this.invoke(
+        new SumTask(table, rowLength, 0, inputs, hits, increment, 0, hits.length, rowsPerTask));
+  }
+
+  private static final class SumTask extends RecursiveTask<Integer> {
+    private static final long serialVersionUID = 1L;
+
+    private final byte[] table;
+    private final int rowLength;
+    private final int offset;
+    private final int[] inputs;
+    private final int[] hits;
+    private final boolean increment;
+    private final int from;
+    private final int to;
+    private final int rowsPerTask;
+
+    private SumTask(
+        final byte[] table,
+        final int rowLength,
+        final int offset,
+        final int[] inputs,
+        final int[] hits,
+        final boolean increment,
+        final int from,
+        final int to,
+        final int rowsPerTask) {
+      this.table = table;
+      this.rowLength = rowLength;
+      this.offset = offset;
+      this.inputs = inputs;
+      this.hits = hits;
+      this.increment = increment;
+      this.from = from;
+      this.to = to;
+      this.rowsPerTask = rowsPerTask;
+    }
+
+    private int sum() {
+      int acc = 0;
+      int offsetRow = this.from * this.rowLength;
+      for (int i = this.from; i < this.to; i++) {
+        acc += this.table[offsetRow + this.inputs[i + this.offset]];
+        offsetRow += this.rowLength;
+      }
+      return acc;
+    }
+
+    private int update() {
+      int baselineDelta = 0;
+      for (int i = this.from; i < this.to; i++) {
+        final int count = this.hits[i];
+        if (count == 0) {
+          continue;
+        }
+        final int index = i * this.rowLength + this.inputs[i];
+        final int old = this.table[index];
+        final int value = this.increment
+            ? Math.min(Byte.MAX_VALUE, old + count)
+            : Math.max(Byte.MIN_VALUE, old - count);
+        this.table[index] = (byte) value;
+        if (this.inputs[i] == 0) {
+          baselineDelta += value - old;
+        }
+      }
+      return baselineDelta;
+    }
+
+    @Override
+    protected Integer compute() {
+      if (this.to - this.from <= this.rowsPerTask) {
+        return this.hits == null ? this.sum() : this.update();
+      }
+      final int middle = (this.from + this.to) >>> 1;
+      final SumTask left = new SumTask(this.table, this.rowLength, this.offset, this.inputs,
+          this.hits, this.increment, this.from, middle, this.rowsPerTask);
+      final SumTask right = new SumTask(this.table, this.rowLength, this.offset, this.inputs,
+          this.hits, this.increment, middle, this.to, this.rowsPerTask);
+      left.fork();
+      final int result = right.compute();
+      return result + left.join();
+    }
+  }
+}
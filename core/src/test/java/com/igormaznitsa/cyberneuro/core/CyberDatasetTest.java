@@ -0,0 +1,165 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CyberDatasetTest {
+
+  @TempDir
+  Path tempDir;
+
+  private static int[][] makeSamples(final Random rnd, final int count, final int inputSize,
+                                     final int maxValue) {
+    final int[][] result = new int[count][inputSize];
+    for (final int[] sample : result) {
+      for (int i = 0; i < inputSize; i++) {
+        sample[i] = rnd.nextInt(maxValue + 1);
+      }
+    }
+    return result;
+  }
+
+  private static ConfidenceDegree expectedFor(final int[] sample) {
+    return ConfidenceDegree.values()[sample[0] % ConfidenceDegree.values().length];
+  }
+
+  private Path write(final String name, final int[][] samples, final int maxValue)
+      throws IOException {
+    final Path file = this.tempDir.resolve(name);
+    try (CyberDatasetWriter writer =
+             CyberDatasetWriter.create(file, samples[0].length, maxValue)) {
+      for (final int[] sample : samples) {
+        writer.write(sample, expectedFor(sample));
+      }
+      assertThrowsExactly(IllegalArgumentException.class,
+          () -> writer.write(new int[samples[0].length + 1], ConfidenceDegree.NO));
+    }
+    return file;
+  }
+
+  @Test
+  void testWriteAndReadPackedRecords() throws IOException {
+    final int[][] samples = makeSamples(new Random(1L), 1000, 13, 3);
+    try (CyberDataset dataset = CyberDataset.open(this.write("packed.cnds", samples, 3))) {
+      assertEquals(2, dataset.getBitsPerValue());
+      assertEquals(samples.length, dataset.getRecordCount());
+      final int[] buffer = new int[13];
+      dataset.forEach(r -> {
+        final int[] expected = samples[(int) r.getIndex()];
+        assertArrayEquals(expected, r.copyInputs(buffer));
+        assertEquals(expected[12], r.getInput(12));
+        assertEquals(expectedFor(expected), r.getExpected());
+      });
+      assertEquals(samples[500][3], dataset.record(500).getInput(3));
+    }
+  }
+
+  @Test
+  void testDatasetWiderThanNeuronIsRejectedBeforeTeaching() throws IOException {
+    final int[][] nibbles = makeSamples(new Random(3L), 50, 4, 15);
+    final int[][] bytes = makeSamples(new Random(4L), 50, 4, 200);
+    final CyberNeuron narrow = CyberNeuron.of(4, 7);
+    final String before = narrow.asText();
+    try (CyberDataset packed = CyberDataset.open(this.write("nibbles.cnds", nibbles, 15));
+         CyberDataset wide = CyberDataset.open(this.write("wide.cnds", bytes, 200))) {
+      assertEquals(4, packed.getBitsPerValue());
+      assertEquals(8, wide.getBitsPerValue());
+      assertThrowsExactly(IllegalArgumentException.class,
+          () -> packed.teach(narrow, LearnStrategy.SEQUENTIAL));
+      assertThrowsExactly(IllegalArgumentException.class,
+          () -> wide.teach(narrow, LearnStrategy.SEQUENTIAL));
+      assertEquals(before, narrow.asText());
+      narrow.setLock(true);
+      final CyberEvaluator evaluator = CyberEvaluator.ofCommonPool();
+      assertThrowsExactly(IllegalArgumentException.class,
+          () -> evaluator.evaluate(narrow, packed));
+      assertThrowsExactly(IllegalArgumentException.class,
+          () -> evaluator.evaluate(narrow, wide));
+    }
+  }
+
+  @Test
+  void testTeachFromByteRecordsMatchesTeachFromVectors() throws IOException {
+    final int[][] samples = makeSamples(new Random(2L), 300, 5, 200);
+    final CyberNeuron fromDataset = CyberNeuron.of(5, 200);
+    final CyberNeuron fromVectors = CyberNeuron.of(5, 200);
+
+    try (CyberDataset dataset = CyberDataset.open(this.write("bytes.cnds", samples, 200))) {
+      assertEquals(8, dataset.getBitsPerValue());
+      dataset.teach(fromDataset, LearnStrategy.SEQUENTIAL);
+      dataset.forEach(r ->
+          assertEquals(fromDataset.calc(r.inputBytes()),
+              fromDataset.calc(samples[(int) r.getIndex()])));
+    }
+    for (final int[] sample : samples) {
+      fromVectors.teach(sample, LearnStrategy.SEQUENTIAL, expectedFor(sample));
+    }
+    assertEquals(fromVectors.asText().substring(fromVectors.asText().indexOf(',')),
+        fromDataset.asText().substring(fromDataset.asText().indexOf(',')));
+  }
+
+  @Test
+  void testParallelEvaluationMatchesSequentialTally() throws IOException {
+    final int[][] samples = makeSamples(new Random(40L), 5000, 6, 3);
+    final ConfidenceDegree[] expected = new ConfidenceDegree[samples.length];
+    for (int i = 0; i < samples.length; i++) {
+      expected[i] = expectedFor(samples[i]);
+    }
+    final CyberNeuron neuron = CyberNeuron.of(6, 3);
+    final byte[] table = new byte[6 * 4];
+    new Random(41L).nextBytes(table);
+    neuron.fill(table);
+    neuron.setLock(true);
+
+    final CyberNet net = new CyberNet();
+    final CyberNetInputPin[] pins = new CyberNetInputPin[6];
+    for (int i = 0; i < pins.length; i++) {
+      pins[i] = net.addInputPin();
+    }
+    net.put(neuron);
+    for (int i = 0; i < pins.length; i++) {
+      net.link(pins[i], neuron, i);
+    }
+    net.link(neuron, net.addOutput(), 0);
+    net.setLock(true);
+
+    final long[][] tally = new long[4][4];
+    for (int i = 0; i < samples.length; i++) {
+      tally[expected[i].ordinal()][neuron.check(0, samples[i]).ordinal()]++;
+    }
+
+    final CyberEvaluator evaluator = CyberEvaluator.ofCommonPool();
+    final ConfidenceDegree[][] netExpected = new ConfidenceDegree[samples.length][];
+    for (int i = 0; i < samples.length; i++) {
+      netExpected[i] = new ConfidenceDegree[] {expected[i]};
+    }
+    try (CyberDataset dataset = CyberDataset.open(this.write("eval.cnds", samples, 3))) {
+      final CyberEvaluationReport[] reports = {
+          evaluator.evaluate(neuron, dataset),
+          evaluator.evaluate(net, 0, dataset),
+          evaluator.evaluate(neuron, samples, expected),
+          evaluator.evaluate(net, samples, netExpected)
+      };
+      for (final CyberEvaluationReport report : reports) {
+        assertEquals(samples.length, report.getSampleCount());
+        long correct = 0;
+        for (final ConfidenceDegree e : ConfidenceDegree.values()) {
+          for (final ConfidenceDegree a : ConfidenceDegree.values()) {
+            assertEquals(tally[e.ordinal()][a.ordinal()], report.getConfusion(0, e, a));
+            if (e == a) {
+              correct += tally[e.ordinal()][a.ordinal()];
+            }
+          }
+        }
+        assertEquals((double) correct / samples.length, report.getAccuracy(0), 1.0e-9d);
+      }
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class CyberNetInferenceServiceTest {
+
+  private static void lockNeurons(final CyberNet net) {
+    net.getEntities().stream()
+        .filter(CyberNeuron.class::isInstance)
+        .forEach(n -> ((CyberNeuron) n).setLock(true));
+  }
+
+  @Test
+  void testConcurrentSubmissionsAreCoalesced() throws Exception {
+    final CyberNet net = CyberNetBuilder.withInputs(8)
+        .addLayer(4, 5, 3, FanIn.windowed(1))
+        .build();
+    net.setLock(true);
+    assertThrowsExactly(IllegalStateException.class,
+        () -> CyberNetInferenceService.of(net, 64, Duration.ofMillis(2L), 2));
+    lockNeurons(net);
+
+    final int[][] samples = new int[2000][8];
+    for (int s = 0; s < samples.length; s++) {
+      for (int i = 0; i < 8; i++) {
+        samples[s][i] = (s * 7 + i * 3) % 4;
+      }
+    }
+
+    try (CyberNetInferenceService service =
+             CyberNetInferenceService.of(net, 64, Duration.ofMillis(2L), 2)) {
+      final List<CompletableFuture<int[]>> futures = IntStream.range(0, samples.length)
+          .parallel()
+          .mapToObj(s -> service.submit(samples[s]))
+          .collect(Collectors.toList());
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+      assertEquals(samples.length, service.getProcessedCount());
+      assertTrue(service.getBatchCount() <= samples.length);
+      assertTrue(service.getLargestBatchSize() <= 64);
+      assertEquals(0, service.getQueueDepth());
+
+      for (int s = 0; s < samples.length; s++) {
+        assertArrayEquals(net.activate(samples[s]), futures.get(s).get());
+      }
+      final ExecutionException wrongLength = assertThrowsExactly(ExecutionException.class,
+          () -> service.submit(new int[3]).get());
+      assertTrue(wrongLength.getCause() instanceof IllegalArgumentException);
+    }
+  }
+
+  @Test
+  void testCloseFromCompletionStageDoesNotDeadlock() throws Exception {
+    final CyberNet net = CyberNetBuilder.withInputs(4)
+        .addLayer(2, 2, 3, FanIn.windowed(1))
+        .build();
+    net.setLock(true);
+    lockNeurons(net);
+
+    final CyberNetInferenceService service =
+        CyberNetInferenceService.of(net, 8, Duration.ofMillis(100L), 2);
+    final CompletableFuture<Void> closed = service.submit(new int[4]).thenRun(service::close);
+    closed.get(10L, TimeUnit.SECONDS);
+    final ExecutionException rejected = assertThrowsExactly(ExecutionException.class,
+        () -> service.submit(new int[4]).get());
+    assertTrue(rejected.getCause() instanceof IllegalStateException);
+  }
+
+  @Test
+  void testSubmitRacingCloseNeverHangs() throws Exception {
+    final CyberNet net = CyberNetBuilder.withInputs(4)
+        .addLayer(2, 2, 3, FanIn.windowed(1))
+        .build();
+    net.setLock(true);
+    lockNeurons(net);
+
+    for (int round = 0; round < 50; round++) {
+      final CyberNetInferenceService service =
+          CyberNetInferenceService.of(net, 8, Duration.ZERO, 1);
+      final List<CompletableFuture<int[]>> futures = new CopyOnWriteArrayList<>();
+      final Thread submitter = new Thread(() -> {
+        for (int i = 0; i < 200; i++) {
+          futures.add(service.submit(new int[4]));
+        }
+      });
+      submitter.start();
+      service.close();
+      submitter.join();
+      assertTrue(futures.stream().allMatch(CompletableFuture::isDone));
+    }
+  }
+}
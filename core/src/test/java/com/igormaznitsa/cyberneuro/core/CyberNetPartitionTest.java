@@ -0,0 +1,120 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Test;
+
+class CyberNetPartitionTest {
+
+  private static CyberNet makeLayeredNet(final Random rnd) {
+    final CyberNet net = CyberNetBuilder.withInputs(12)
+        .addLayer(10, 4, 3, FanIn.randomK(1L))
+        .addLayer(6, 3, 508, FanIn.randomK(2L))
+        .addLayer(3, 2, 1524, FanIn.randomK(3L))
+        .build();
+    net.getEntities().stream()
+        .filter(CyberNeuron.class::isInstance)
+        .map(CyberNeuron.class::cast)
+        .forEach(n -> {
+          final byte[] table = new byte[n.getInputSize() * n.getRowLength()];
+          for (int i = 0; i < table.length; i++) {
+            table[i] = (byte) rnd.nextInt(Byte.MAX_VALUE + 1);
+          }
+          n.fill(table);
+          n.setLock(true);
+        });
+    net.setLock(true);
+    return net;
+  }
+
+  private static int[] makeInputs(final Random rnd, final int samples) {
+    final int[] result = new int[samples * 12];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = rnd.nextInt(4);
+    }
+    return result;
+  }
+
+  private static void assertSameAsNet(
+      final CyberNet net,
+      final CyberNetPartition partition,
+      final ShardTransport transport,
+      final Random rnd) {
+    final List<int[]> batches = new ArrayList<>();
+    final List<CompletableFuture<int[]>> results = new ArrayList<>();
+    for (int b = 0; b < 8; b++) {
+      final int[] inputs = makeInputs(rnd, 16);
+      batches.add(inputs);
+      results.add(partition.activateBatch(transport, inputs, 16));
+    }
+    for (int b = 0; b < batches.size(); b++) {
+      final int[] actual = results.get(b).join();
+      for (int s = 0; s < 16; s++) {
+        final int[] sample = new int[12];
+        System.arraycopy(batches.get(b), s * 12, sample, 0, 12);
+        final int[] expected = net.activate(sample);
+        final int[] sampleResult = new int[expected.length];
+        System.arraycopy(actual, s * expected.length, sampleResult, 0, expected.length);
+        assertArrayEquals(expected, sampleResult);
+      }
+    }
+  }
+
+  @Test
+  void testInProcessShardsMatchNet() throws IOException {
+    final Random rnd = new Random(38L);
+    final CyberNet net = makeLayeredNet(rnd);
+    final CyberNetPartition partition = net.partition(3, 0.25d);
+    assertEquals(3, partition.getShards().size());
+    try (InProcessShardTransport transport = InProcessShardTransport.of(partition.getShards())) {
+      assertSameAsNet(net, partition, transport, rnd);
+    }
+    assertThrowsExactly(IllegalArgumentException.class, () -> net.partition(100, 0.1d));
+  }
+
+  @Test
+  void testLoopbackTcpShardsMatchNet() throws IOException {
+    final Random rnd = new Random(380L);
+    final CyberNet net = makeLayeredNet(rnd);
+    final CyberNetPartition partition = net.partition(2, 0.3d);
+
+    final List<ShardServer> servers = new ArrayList<>();
+    final List<InetSocketAddress> addresses = new ArrayList<>();
+    try {
+      for (final CyberNetShard shard : partition.getShards()) {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        shard.writeTo(new DataOutputStream(buffer));
+        final CyberNetShard restored = CyberNetShard.readFrom(
+            new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())));
+        final ShardServer server = ShardServer.startLoopback(restored);
+        servers.add(server);
+        addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+      }
+      try (TcpShardTransport transport = TcpShardTransport.connect(addresses)) {
+        assertSameAsNet(net, partition, transport, rnd);
+        final CompletionException failure = assertThrowsExactly(CompletionException.class,
+            () -> transport.execute(0, 3, new int[1]).join());
+        assertEquals(IllegalStateException.class, failure.getCause().getClass());
+        assertSameAsNet(net, partition, transport, rnd);
+      }
+    } finally {
+      for (final ShardServer server : servers) {
+        server.close();
+      }
+    }
+  }
+}
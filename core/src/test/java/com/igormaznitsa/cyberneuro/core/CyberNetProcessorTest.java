@@ -0,0 +1,114 @@
+package com.igormaznitsa.cyberneuro.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class CyberNetProcessorTest {
+
+  private static CyberNet makeNet() {
+    CyberNet net = new CyberNet();
+    var input1 = net.addInputPin();
+    var input2 = net.addInputPin();
+    var neuron = CyberNeuron.of(2, 3);
+    net.put(neuron);
+    var out1 = net.addOutput();
+    net.link(input1, neuron, 0);
+    net.link(input2, neuron, 1);
+    net.link(neuron, out1, 0);
+    net.setLock(true);
+    return net;
+  }
+
+  private static List<int[]> runThrough(
+      final CyberNetProcessor processor,
+      final List<int[]> samples,
+      final int requestStep) throws InterruptedException {
+    final List<int[]> received = Collections.synchronizedList(new ArrayList<>());
+    final CountDownLatch done = new CountDownLatch(1);
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    processor.subscribe(new Flow.Subscriber<>() {
+      private Flow.Subscription subscription;
+      private int counter;
+
+      @Override
+      public void onSubscribe(final Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(requestStep);
+      }
+
+      @Override
+      public void onNext(final int[] item) {
+        received.add(item);
+        if (++this.counter % requestStep == 0) {
+          this.subscription.request(requestStep);
+        }
+      }
+
+      @Override
+      public void onError(final Throwable throwable) {
+        error.set(throwable);
+        done.countDown();
+      }
+
+      @Override
+      public void onComplete() {
+        done.countDown();
+      }
+    });
+
+    try (SubmissionPublisher<int[]> publisher = new SubmissionPublisher<>()) {
+      publisher.subscribe(processor);
+      samples.forEach(publisher::submit);
+    }
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    assertNull(error.get());
+    return received;
+  }
+
+  private static List<int[]> makeSamples(final int count) {
+    final List<int[]> result = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      result.add(new int[] {i % 4, (i / 4) % 4});
+    }
+    return result;
+  }
+
+  @Test
+  void testOrderedProcessing() throws Exception {
+    final CyberNet net = makeNet();
+    final List<int[]> samples = makeSamples(2000);
+    final List<int[]> received = runThrough(
+        CyberNetProcessor.of(net, 16, Duration.ofMillis(2), 4, true), samples, 7);
+
+    assertEquals(samples.size(), received.size());
+    for (int i = 0; i < samples.size(); i++) {
+      assertArrayEquals(net.activate(samples.get(i)), received.get(i));
+    }
+  }
+
+  @Test
+  void testUnorderedProcessing() throws Exception {
+    final CyberNet net = makeNet();
+    final List<int[]> samples = makeSamples(1000);
+    final List<int[]> received = runThrough(
+        CyberNetProcessor.of(net, 32, Duration.ofMillis(1), 3, false), samples, 1000);
+
+    assertEquals(samples.size(), received.size());
+    final long expectedSum = samples.stream().mapToLong(x -> net.activate(x)[0]).sum();
+    assertEquals(expectedSum, received.stream().mapToLong(x -> x[0]).sum());
+  }
+}
@@ -1,14 +1,35 @@
 package com.igormaznitsa.cyberneuro.core;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
 
 class CyberNetTest {
 
+  private static CyberNeuron makeNonNegativeNeuron(
+      final Random rnd,
+      final int inputSize,
+      final int maxValue) {
+    final CyberNeuron result = CyberNeuron.of(inputSize, maxValue);
+    final byte[] table = new byte[inputSize * (maxValue + 1)];
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (byte) rnd.nextInt(Byte.MAX_VALUE + 1);
+    }
+    result.fill(table);
+    return result;
+  }
+
   private static void logDiagram(final String title, final CyberNet net) {
     System.out.println("-------------------------");
     System.out.println("  " + title);
@@ -33,6 +54,45 @@ class CyberNetTest {
     net.link(neuron1, out1, 0);
 
     assertTrue(net.hasInternalErrors());
+
+    final List<CyberNetIssue> errors = net.findErrors();
+    assertEquals(2, errors.size());
+    assertEquals(CyberNetIssue.Type.UNUSED_OUTPUT, errors.get(0).getType());
+    assertEquals(input3, errors.get(0).getEntity());
+    assertEquals(CyberNetIssue.Type.UNCONNECTED_INPUT, errors.get(1).getType());
+    assertEquals(neuron1, errors.get(1).getEntity());
+    assertEquals(2, errors.get(1).getIndex());
+    assertEquals(2, net.findFirstFreeInputIndex(neuron1));
+
+    net.link(input3, neuron1);
+    assertFalse(net.hasInternalErrors());
+    assertTrue(net.findErrors().isEmpty());
+    assertEquals(-1, net.findFirstFreeInputIndex(neuron1));
+  }
+
+  @Test
+  void testNet_UnusedOutputIndexIsFineWhenLinkCountCoversOutputs() {
+    final CyberNet inner = new CyberNet();
+    final CyberNetInputPin innerInput = inner.addInputPin();
+    final CyberNeuron innerNeuron = CyberNeuron.of(1, 3);
+    inner.put(innerNeuron);
+    inner.link(innerInput, innerNeuron, 0);
+    inner.link(innerNeuron, inner.addOutput(), 0);
+    inner.link(innerNeuron, inner.addOutput(), 0);
+    assertFalse(inner.hasInternalErrors());
+
+    final CyberNet net = new CyberNet();
+    final CyberNetInputPin input = net.addInputPin();
+    net.put(inner);
+    net.link(input, inner, 0);
+    net.link(inner, 0, net.addOutput(), 0);
+    assertTrue(net.hasInternalErrors());
+    assertEquals(CyberNetIssue.Type.UNUSED_OUTPUT, net.findErrors().get(0).getType());
+    assertEquals(1, net.findErrors().get(0).getIndex());
+
+    net.link(inner, 0, net.addOutput(), 0);
+    assertFalse(net.hasInternalErrors());
+    assertTrue(net.findErrors().isEmpty());
   }
 
   @Test
@@ -140,4 +200,695 @@ class CyberNetTest {
     logDiagram("3x2 network", net);
   }
 
-}
\ No newline at end of file
+  @Test
+  void testNet_ActivationCache() {
+    CyberNet net = new CyberNet();
+    var input1 = net.addInputPin();
+    var input2 = net.addInputPin();
+    var out1 = net.addOutput();
+    var neuron = CyberNeuron.of(2, 3);
+    net.put(neuron);
+    net.link(input1, neuron, 0);
+    net.link(input2, neuron, 1);
+    net.link(neuron, out1, 0);
+
+    final ActivationCache cache = net.enableActivationCache(128, CacheEviction.LEAST_RECENTLY_USED);
+    net.setLock(true);
+    final int[] first = net.activate(new int[] {1, 2});
+    assertEquals(first[0], net.activate(new int[] {1, 2})[0]);
+    assertEquals(0, cache.getHits() + cache.getMisses());
+
+    neuron.setLock(true);
+    assertEquals(first[0], net.activate(new int[] {1, 2})[0]);
+    assertEquals(first[0], net.activate(new int[] {1, 2})[0]);
+    assertEquals(1, cache.getHits());
+
+    final CyberNeuron unrelated = CyberNeuron.of(2, 3);
+    unrelated.setLock(true);
+    unrelated.setLock(false);
+    assertEquals(first[0], net.activate(new int[] {1, 2})[0]);
+    assertEquals(2, cache.getHits());
+
+    neuron.setLock(false);
+    neuron.teach(new int[] {1, 2}, LearnStrategy.SEQUENTIAL, ConfidenceDegree.YES);
+    neuron.setLock(true);
+    assertEquals(neuron.calc(new int[] {1, 2}), net.activate(new int[] {1, 2})[0]);
+    assertEquals(2, cache.getHits());
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  void testNet_Tabulate() {
+    CyberNet net = new CyberNet();
+    var neuron1 = CyberNeuron.of(16, 1);
+    var neuron2 = CyberNeuron.of(8, 1);
+    net.put(neuron1);
+    net.put(neuron2);
+    var out1 = net.addOutput();
+    var out2 = net.addOutput();
+    for (int i = 0; i < 16; i++) {
+      var input = net.addInputPin();
+      net.link(input, neuron1, i);
+      if (i % 2 == 0) {
+        net.link(input, neuron2, i / 2);
+      }
+    }
+    net.link(neuron1, out1, 0);
+    net.link(neuron2, out2, 0);
+
+    assertThrowsExactly(IllegalStateException.class, () -> net.tabulate(Long.MAX_VALUE));
+    net.setLock(true);
+    assertThrowsExactly(IllegalStateException.class, () -> net.tabulate(Long.MAX_VALUE));
+    neuron1.setLock(true);
+    neuron2.setLock(true);
+    assertTrue(net.tabulate(65536L * 2 * Integer.BYTES - 1).isEmpty());
+
+    final TabulatedCyberNet tabulated = net.tabulate(65536L * 2 * Integer.BYTES).orElseThrow();
+    assertEquals(65536, tabulated.getRowCount());
+    final int[] inputs = new int[16];
+    for (int row = 0; row < 65536; row += 7) {
+      for (int i = 0; i < 16; i++) {
+        inputs[i] = (row >> i) & 1;
+      }
+      assertArrayEquals(net.activate(inputs), tabulated.activate(inputs));
+    }
+    inputs[3] = 2;
+    assertThrowsExactly(IllegalArgumentException.class, () -> tabulated.activate(inputs));
+  }
+
+  @Test
+  void testNet_NestedNetworkActivation() {
+    CyberNet inner = new CyberNet();
+    var innerIn1 = inner.addInputPin();
+    var innerIn2 = inner.addInputPin();
+    var innerNeuron = CyberNeuron.of(2, 3);
+    inner.put(innerNeuron);
+    var innerOut = inner.addOutput();
+    inner.link(innerIn1, innerNeuron, 0);
+    inner.link(innerIn2, innerNeuron, 1);
+    inner.link(innerNeuron, innerOut, 0);
+
+    CyberNet net = new CyberNet();
+    var input1 = net.addInputPin();
+    var input2 = net.addInputPin();
+    var out1 = net.addOutput();
+    net.put(inner);
+    net.link(input1, inner, 0);
+    net.link(input2, inner, 1);
+    net.link(inner, out1, 0);
+
+    assertFalse(net.hasInternalErrors());
+    assertEquals(innerNeuron.calc(new int[] {2, 3}), net.activate(new int[] {2, 3})[0]);
+
+    final CyberNet copy = (CyberNet) net.makeCopy();
+    assertEquals(net.getEntities().size(), copy.getEntities().size());
+    assertFalse(copy.hasInternalErrors());
+    assertArrayEquals(net.activate(new int[] {1, 3}), copy.activate(new int[] {1, 3}));
+  }
+
+  @Test
+  void testNet_Export() throws Exception {
+    CyberNet inner = new CyberNet();
+    var innerIn = inner.addInputPin();
+    var innerNeuron = CyberNeuron.of(1, 3);
+    inner.put(innerNeuron);
+    var innerOut = inner.addOutput();
+    inner.link(innerIn, innerNeuron, 0);
+    inner.link(innerNeuron, innerOut, 0);
+
+    CyberNet net = new CyberNet();
+    var input = net.addInputPin();
+    var neuron = CyberNeuron.of(1, 3);
+    var out = net.addOutput();
+    net.put(neuron);
+    net.put(inner);
+    net.link(input, neuron, 0);
+    net.link(neuron, inner, 0);
+    net.link(inner, out, 0);
+
+    final String dot = net.makeDotDiagram();
+    assertTrue(dot.startsWith("digraph G {\n"));
+    assertTrue(dot.contains("\"N_" + neuron.getUid() + "\" -> \"M_" + inner.getUid() + "\""));
+    assertFalse(dot.contains("cluster_"));
+
+    final StringBuilder clustered = new StringBuilder();
+    CyberNetExporter.of(GraphFormat.DOT).withNestedClusters(true).write(net, clustered);
+    assertTrue(clustered.toString().contains("subgraph \"cluster_M_" + inner.getUid() + "\""));
+    assertTrue(clustered.toString()
+        .contains("\"N_" + neuron.getUid() + "\" -> \"I_" + innerIn.getUid() + "\""));
+
+    final StringBuilder edges = new StringBuilder();
+    net.export(GraphFormat.EDGE_LIST, edges);
+    assertEquals(3, edges.toString().split("\n").length);
+    assertTrue(edges.toString().contains("I_" + input.getUid() + " 0 N_" + neuron.getUid() + " 0"));
+
+    final StringBuilder local = new StringBuilder();
+    CyberNetExporter.of(GraphFormat.EDGE_LIST).around(input, 1).write(net, local);
+    assertEquals("I_" + input.getUid() + " 0 N_" + neuron.getUid() + " 0\n", local.toString());
+  }
+
+  @Test
+  void testNet_Builder() {
+    final CyberNet windowed = CyberNetBuilder.withInputs(4)
+        .addLayer(3, 2, 3, FanIn.windowed(1))
+        .build();
+    assertEquals(4, windowed.getInputSize());
+    assertEquals(3, windowed.getOutputSize());
+    assertFalse(windowed.hasInternalErrors());
+    final int[] inputs = {1, 2, 3, 0};
+    final int[] outputs = windowed.activate(inputs);
+    final List<CyberNeuron> neurons = windowed.getEntities().stream()
+        .filter(CyberNeuron.class::isInstance)
+        .map(CyberNeuron.class::cast)
+        .collect(Collectors.toList());
+    for (int i = 0; i < neurons.size(); i++) {
+      assertEquals(neurons.get(i).calc(new int[] {inputs[i], inputs[i + 1]}), outputs[i]);
+    }
+
+    final CyberNet sparse = CyberNetBuilder.withInputs(16)
+        .addLayer(8, 4, 1, FanIn.randomK(7L))
+        .build();
+    assertEquals(8, sparse.getOutputSize());
+    sparse.getEntities().stream()
+        .filter(CyberNeuron.class::isInstance)
+        .forEach(n -> assertEquals(4, sparse.findIncomingLinks((HasInput) n).stream()
+            .map(CyberLink::source).distinct().count()));
+
+    assertThrowsExactly(IllegalArgumentException.class,
+        () -> CyberNetBuilder.withInputs(4).addLayer(2, 3, 1, FanIn.full()).build());
+    assertThrowsExactly(IllegalArgumentException.class,
+        () -> CyberNetBuilder.withInputs(4).addLayer(3, 3, 1, FanIn.windowed(1)).build());
+    assertThrowsExactly(IllegalStateException.class,
+        () -> CyberNetBuilder.withInputs(2)
+            .addLayer(1, 2, 1, (sources, count, size, indexes) -> indexes[0] = 2).build());
+
+    final CyberNet large = CyberNetBuilder.withInputs(1000)
+        .addLayer(1000, 1000, 1, FanIn.full())
+        .build();
+    assertFalse(large.hasInternalErrors());
+    assertEquals(1000, large.activate(new int[1000]).length);
+  }
+
+  @Test
+  void testNet_SparseActivation() {
+    final Random rnd = new Random(371L);
+    CyberNet net = new CyberNet();
+    final CyberNetInputPin[] inputs = new CyberNetInputPin[8];
+    for (int i = 0; i < inputs.length; i++) {
+      inputs[i] = net.addInputPin();
+    }
+    var first = makeNonNegativeNeuron(rnd, 6, 3);
+    var second = makeNonNegativeNeuron(rnd, 3, 1016);
+    var out1 = net.addOutput();
+    var out2 = net.addOutput();
+    net.put(first);
+    net.put(second);
+    for (int i = 0; i < 6; i++) {
+      net.link(inputs[i], first, i);
+    }
+    net.link(inputs[6], second, 0);
+    net.link(first, second, 1);
+    net.link(inputs[7], second, 2);
+    net.link(first, out1, 0);
+    net.link(second, out2, 0);
+
+    for (int s = 0; s < 50; s++) {
+      final int[] dense = new int[8];
+      final int[] indexes = new int[3];
+      final int[] values = new int[3];
+      for (int i = 0; i < 3; i++) {
+        indexes[i] = rnd.nextInt(8);
+        values[i] = rnd.nextInt(4);
+        dense[indexes[i]] = values[i];
+      }
+      assertArrayEquals(net.activate(dense), net.activateSparse(indexes, values, 3));
+    }
+    assertThrowsExactly(IllegalArgumentException.class,
+        () -> net.activateSparse(new int[] {0}, new int[] {4}, 1));
+  }
+
+  @Test
+  void testNet_Recurrent() {
+    final Random rnd = new Random(41L);
+    CyberNet net = new CyberNet();
+    var input = net.addInputPin();
+    var mixer = makeNonNegativeNeuron(rnd, 2, 127);
+    var feedback = makeNonNegativeNeuron(rnd, 1, 254);
+    var out = net.addOutput();
+    net.put(mixer);
+    net.put(feedback);
+    net.link(input, mixer, 0);
+    net.link(feedback, mixer, 1);
+    net.link(mixer, feedback, 0);
+    net.link(mixer, out, 0);
+    net.setLock(true);
+
+    assertThrowsExactly(IllegalStateException.class, () -> net.activate(new int[] {1}));
+    assertEquals(5, net.findWholeChain(out).stream().mapToInt(List::size).sum());
+    assertThrowsExactly(IllegalStateException.class, net::makeRecurrent);
+    mixer.setLock(true);
+    feedback.setLock(true);
+
+    final RecurrentCyberNet recurrent = net.makeRecurrent();
+    assertEquals(1, recurrent.getDelayedLinkCount());
+    final int[] sequence = new int[20];
+    for (int i = 0; i < sequence.length; i++) {
+      sequence[i] = rnd.nextInt(128);
+    }
+    final int[] expected = new int[sequence.length];
+    int previousMixer = 0;
+    for (int t = 0; t < sequence.length; t++) {
+      final int feedbackValue = feedback.calc(new int[] {previousMixer});
+      previousMixer = mixer.calc(new int[] {sequence[t], feedbackValue});
+      expected[t] = previousMixer;
+    }
+    assertArrayEquals(expected, recurrent.run(sequence, sequence.length));
+
+    recurrent.reset();
+    for (int t = 0; t < 5; t++) {
+      assertEquals(expected[t], recurrent.step(new int[] {sequence[t]})[0]);
+    }
+  }
+
+  @Test
+  void testNet_WholeChainKeepsSourcesBeforeTargets() {
+    final CyberNet net = new CyberNet();
+    final CyberNetInputPin input = net.addInputPin();
+    final CyberNeuron y = CyberNeuron.of(1, 3);
+    final CyberNeuron w = CyberNeuron.of(1, 3);
+    final CyberNeuron z = CyberNeuron.of(2, 3);
+    final CyberNetOutputPin out = net.addOutput();
+    net.put(y);
+    net.put(w);
+    net.put(z);
+    final CyberLink inputToY = net.link(input, y, 0);
+    final CyberLink yToW = net.link(y, w, 0);
+    final CyberLink wToZ = net.link(w, z, 0);
+    final CyberLink yToZ = net.link(y, z, 1);
+    final CyberLink zToOut = net.link(z, out, 0);
+
+    final List<List<CyberLink>> chain = net.findWholeChain(out);
+    assertEquals(List.of(List.of(inputToY), List.of(yToW, inputToY), List.of(wToZ, yToZ),
+        List.of(zToOut)), chain);
+  }
+
+  @Test
+  void testNet_IncrementalEvaluator() {
+    final Random rnd = new Random(12345L);
+    CyberNet inner = new CyberNet();
+    var innerIn = inner.addInputPin();
+    var innerNeuron = makeNonNegativeNeuron(rnd, 1, 1016);
+    inner.put(innerNeuron);
+    var innerOut = inner.addOutput();
+    inner.link(innerIn, innerNeuron, 0);
+    inner.link(innerNeuron, innerOut, 0);
+
+    CyberNet net = new CyberNet();
+    final CyberNetInputPin[] inputs = new CyberNetInputPin[32];
+    for (int i = 0; i < inputs.length; i++) {
+      inputs[i] = net.addInputPin();
+    }
+    final CyberNeuron[] layer = new CyberNeuron[4];
+    for (int i = 0; i < layer.length; i++) {
+      layer[i] = makeNonNegativeNeuron(rnd, 8, 3);
+      net.put(layer[i]);
+      for (int j = 0; j < 8; j++) {
+        net.link(inputs[i * 8 + j], layer[i], j);
+      }
+    }
+    var head = makeNonNegativeNeuron(rnd, 3, 1016);
+    net.put(head);
+    net.put(inner);
+    net.link(layer[0], head, 0);
+    net.link(layer[1], head, 1);
+    net.link(layer[2], inner, 0);
+    net.link(inner, head, 2);
+    var out1 = net.addOutput();
+    var out2 = net.addOutput();
+    net.link(head, out1, 0);
+    net.link(layer[3], out2, 0);
+
+    net.setLock(true);
+    inner.setLock(true);
+    innerNeuron.setLock(true);
+    head.setLock(true);
+    for (final CyberNeuron n : layer) {
+      n.setLock(true);
+    }
+
+    final int[] vector = new int[inputs.length];
+    final IncrementalCyberNetEvaluator evaluator = net.makeIncrementalEvaluator(vector);
+    assertArrayEquals(net.activate(vector), evaluator.getOutputs());
+    for (int i = 0; i < 200; i++) {
+      final int index = rnd.nextInt(vector.length);
+      vector[index] = rnd.nextInt(4);
+      evaluator.setInput(index, vector[index]);
+      assertArrayEquals(net.activate(vector), evaluator.getOutputs());
+    }
+
+    head.setLock(false);
+    head.teach(new int[] {1, 2, 3}, LearnStrategy.SEQUENTIAL, ConfidenceDegree.YES);
+    assertThrowsExactly(IllegalStateException.class, evaluator::getOutputs);
+    assertThrowsExactly(IllegalStateException.class, evaluator::getOutputs);
+    head.setLock(true);
+    assertArrayEquals(net.activate(vector), evaluator.getOutputs());
+
+    net.setLock(false);
+    net.link(layer[0], net.addOutput(), 0);
+    net.setLock(true);
+    final int[] expanded = net.activate(vector);
+    assertEquals(3, expanded.length);
+    assertArrayEquals(expanded, evaluator.getOutputs());
+    assertEquals(3, evaluator.getOutputSize());
+    vector[0] = 3 - vector[0];
+    evaluator.setInput(0, vector[0]);
+    assertArrayEquals(net.activate(vector), evaluator.getOutputs());
+  }
+
+  @Test
+  void testNet_CompactInputEncodings() {
+    CyberNet net = new CyberNet();
+    var input1 = net.addInputPin();
+    var input2 = net.addInputPin();
+    var input3 = net.addInputPin();
+    var neuron = CyberNeuron.of(3, 5);
+    net.put(neuron);
+    var out1 = net.addOutput();
+    net.link(input1, neuron, 0);
+    net.link(input2, neuron, 1);
+    net.link(input3, neuron, 2);
+    net.link(neuron, out1, 0);
+
+    final byte[] samples = new byte[] {1, 2, 3, 5, 0, 4};
+    final int[] batch = net.activateBatch(samples, 2);
+    final int[] batchFromBuffer = net.activateBatch(ByteBuffer.wrap(samples));
+    assertEquals(net.activate(new int[] {1, 2, 3})[0], batch[0]);
+    assertEquals(net.activate(new int[] {5, 0, 4})[0], batch[1]);
+    assertArrayEquals(batch, batchFromBuffer);
+    assertArrayEquals(net.activate(new int[] {5, 0, 4}),
+        net.activatePacked(net.pack(new int[] {5, 0, 4})));
+    assertArrayEquals(net.activate(new int[] {1, 2, 3}), net.activate(new byte[] {1, 2, 3}));
+
+    final byte[] outOfRange = new byte[] {1, 2, 3, 5, 6, 4};
+    assertThrowsExactly(IllegalArgumentException.class,
+        () -> net.activateBatch(outOfRange, 2));
+    assertThrowsExactly(IllegalArgumentException.class,
+        () -> net.activateBatch(ByteBuffer.wrap(outOfRange)));
+    assertThrowsExactly(IllegalArgumentException.class,
+        () -> net.activate(new byte[] {1, 6, 3}));
+    assertThrowsExactly(IllegalArgumentException.class,
+        () -> net.activatePacked(new long[] {7L}));
+  }
+
+
+  @Test
+  void testNet_SampledTracing() {
+    final Random rnd = new Random(44L);
+    CyberNet net = new CyberNet();
+    final CyberNetInputPin[] inputs = new CyberNetInputPin[4];
+    for (int i = 0; i < inputs.length; i++) {
+      inputs[i] = net.addInputPin();
+    }
+    var first = makeNonNegativeNeuron(rnd, 4, 3);
+    var second = makeNonNegativeNeuron(rnd, 2, 508);
+    net.put(first);
+    net.put(second);
+    for (int i = 0; i < 4; i++) {
+      net.link(inputs[i], first, i);
+    }
+    net.link(first, second, 0);
+    net.link(inputs[0], second, 1);
+    net.link(second, net.addOutput(), 0);
+
+    final ActivationTracer tracer = ActivationTracer.of(8, 3, 0.0d);
+    net.enableTracing(tracer);
+    net.activate(new int[] {1, 2, 3, 0});
+    assertEquals(0L, tracer.getRecordedCount());
+
+    tracer.setSamplingRate(1.0d);
+    final int[] sample = {3, 1, 0, 2};
+    final int[] result = net.activate(sample);
+    final List<ActivationTrace> firstTraces = tracer.drain(first.getUid());
+    assertEquals(1, firstTraces.size());
+    final ActivationTrace trace = firstTraces.get(0);
+    assertArrayEquals(new int[] {3, 1, 0}, trace.getInputs());
+    assertEquals(4, trace.getInputSize());
+    assertTrue(trace.isTruncated());
+    assertEquals(first.calc(sample), trace.getSum());
+    assertEquals(first.activateAsConfidence(sample).get(0), trace.getConfidence());
+    final List<ActivationTrace> secondTraces = tracer.drain(second.getUid());
+    assertEquals(1, secondTraces.size());
+    assertEquals(result[0], secondTraces.get(0).getSum());
+    assertEquals(trace.getActivationId(), secondTraces.get(0).getActivationId());
+    assertTrue(tracer.drain(first.getUid()).isEmpty());
+
+    net.activateBatch(new byte[4 * 20], 20);
+    assertEquals(42L, tracer.getRecordedCount());
+    assertEquals(4, tracer.drain(first.getUid()).size());
+    assertThrowsExactly(IllegalArgumentException.class, () -> ActivationTracer.of(6, 1, 1.0d));
+    assertThrowsExactly(IllegalArgumentException.class, () -> tracer.setSamplingRate(1.5d));
+  }
+
+  @Test
+  void testNet_TracingRingWrapKeepsRecordsWhole() throws Exception {
+    final ActivationTracer tracer = ActivationTracer.of(2, 1024, 1.0d);
+    final Thread[] writers = new Thread[8];
+    final List<ActivationTrace> drained = new CopyOnWriteArrayList<>();
+    for (int w = 0; w < writers.length; w++) {
+      final int writer = w;
+      writers[w] = new Thread(() -> {
+        final int[] values = new int[1024];
+        for (int i = 0; i < 20000; i++) {
+          final int value = writer * 100000 + i;
+          Arrays.fill(values, value);
+          tracer.record(value, 1L, values, values.length, value);
+        }
+      });
+    }
+    final Thread drainer = new Thread(() -> {
+      for (int i = 0; i < 20000; i++) {
+        drained.addAll(tracer.drain(1L));
+      }
+    });
+    for (final Thread writer : writers) {
+      writer.start();
+    }
+    drainer.start();
+    for (final Thread writer : writers) {
+      writer.join();
+    }
+    drainer.join();
+    drained.addAll(tracer.drain(1L));
+
+    assertFalse(drained.isEmpty());
+    for (final ActivationTrace trace : drained) {
+      assertEquals(trace.getSum(), trace.getActivationId());
+      for (final int input : trace.getInputs()) {
+        assertEquals(trace.getSum(), input);
+      }
+    }
+  }
+
+  @Test
+  void testNet_FootprintAndBudget() {
+    final Random rnd = new Random(46L);
+    final CyberNet inner = CyberNetBuilder.withInputs(6)
+        .addLayer(3, 2, 3, FanIn.windowed(2))
+        .build();
+    final CyberNetFootprint innerFootprint = inner.estimateFootprint();
+    assertEquals(3, innerFootprint.getNeuronBytes().size());
+    assertEquals(0L, innerFootprint.getBytes(FootprintCategory.NEURON_TABLES));
+    assertTrue(innerFootprint.getBytes(FootprintCategory.SHARED_TABLES) > 0L);
+    assertTrue(innerFootprint.getBytes(FootprintCategory.LINKS) > 0L);
+    assertEquals(innerFootprint.getTotalBytes(), innerFootprint.getCategories().values().stream()
+        .mapToLong(Long::longValue).sum());
+
+    final CyberNet outer = new CyberNet();
+    final CyberNeuron trained = makeNonNegativeNeuron(rnd, 3, 255);
+    outer.put(inner);
+    outer.put(trained);
+    final CyberNetFootprint outerFootprint = outer.estimateFootprint();
+    assertEquals(innerFootprint.getTotalBytes(),
+        outerFootprint.getNestedFootprints().get(inner.getUid()).getTotalBytes());
+    assertEquals(innerFootprint.getTotalBytes(),
+        outerFootprint.getBytes(FootprintCategory.NESTED_NETS));
+    assertTrue(outerFootprint.getNeuronBytes().get(trained.getUid()) > 3 * 256);
+
+    final CyberNet budgeted = new CyberNet();
+    budgeted.setMemoryBudget(budgeted.getReservedBytes() + 4096L);
+    final CyberNetInputPin pin = budgeted.addInputPin();
+    final CyberNeuron small = CyberNeuron.of(1, 15);
+    budgeted.put(small);
+    final long reserved = budgeted.getReservedBytes();
+    assertThrowsExactly(IllegalStateException.class,
+        () -> budgeted.put(CyberNeuron.of(4, 4095)));
+    assertEquals(reserved, budgeted.getReservedBytes());
+    assertEquals(2, budgeted.getEntities().size());
+    final CyberNeuron sparse = CyberNeuron.of(4, 4095, TableLayout.sparse());
+    budgeted.put(sparse);
+    assertTrue(budgeted.getReservedBytes() - reserved > sparse.findSharedTable().length);
+    budgeted.link(pin, small, 0);
+    final long linked = budgeted.getReservedBytes();
+    assertThrowsExactly(IllegalStateException.class,
+        () -> budgeted.linkBulk(List.of(pin), List.of(sparse, CyberNeuron.of(1, 1)),
+            new int[5]));
+    assertEquals(linked, budgeted.getReservedBytes());
+    assertThrowsExactly(IllegalStateException.class, () -> budgeted.setMemoryBudget(64L));
+  }
+
+  @Test
+  void testNet_OutputSelectiveActivation() {
+    final Random rnd = new Random(47L);
+    final CyberNet net = CyberNetBuilder.withInputs(12)
+        .addLayer(6, 2, 3, FanIn.windowed(2))
+        .addLayer(4, 2, 254, FanIn.windowed(1))
+        .build();
+    net.getEntities().stream()
+        .filter(CyberNeuron.class::isInstance)
+        .map(CyberNeuron.class::cast)
+        .forEach(n -> {
+          final byte[] table = new byte[n.getInputSize() * n.getRowLength()];
+          for (int i = 0; i < table.length; i++) {
+            table[i] = (byte) rnd.nextInt(Byte.MAX_VALUE + 1);
+          }
+          n.fill(table);
+        });
+
+    for (int s = 0; s < 20; s++) {
+      final int[] inputs = new int[12];
+      for (int i = 0; i < inputs.length; i++) {
+        inputs[i] = rnd.nextInt(4);
+      }
+      final int[] all = net.activate(inputs);
+      assertArrayEquals(new int[] {all[2]}, net.activateOutputs(inputs, 2));
+      assertArrayEquals(new int[] {all[3], all[0], all[3]}, net.activateOutputs(inputs, 3, 0, 3));
+      final BitSet mask = new BitSet();
+      mask.set(1);
+      mask.set(3);
+      assertArrayEquals(new int[] {all[1], all[3]}, net.activateOutputs(inputs, mask));
+    }
+
+    final ExecutionPlan plan = net.findExecutionPlan();
+    assertEquals(9, plan.getStepCount());
+    assertEquals(3, plan.findCone(0).getStepCount());
+    assertTrue(plan.findCone(0) == plan.findCone(0));
+    assertThrowsExactly(IllegalArgumentException.class,
+        () -> net.activateOutputs(new int[12], 4));
+
+    final CyberNet wide = CyberNetBuilder.withInputs(8)
+        .addLayer(8, 1, 3, FanIn.windowed(1))
+        .build();
+    wide.setLock(true);
+    final ExecutionPlan widePlan = wide.findExecutionPlan();
+    for (int m = 1; m < 256; m++) {
+      final BitSet mask = BitSet.valueOf(new long[] {m});
+      assertEquals(mask.cardinality(), widePlan.findCone(mask).getStepCount());
+    }
+    assertEquals(ExecutionPlan.MAX_CACHED_CONES, widePlan.getCachedConeCount());
+  }
+
+  @Test
+  void testNet_TransactionRollback() {
+    final Random rnd = new Random(480L);
+    final CyberNet inner = CyberNetBuilder.withInputs(4)
+        .addLayer(2, 2, 3, FanIn.windowed(2))
+        .build();
+    inner.getEntities().stream()
+        .filter(CyberNeuron.class::isInstance)
+        .map(CyberNeuron.class::cast)
+        .forEach(n -> {
+          final byte[] table = new byte[n.getInputSize() * n.getRowLength()];
+          for (int i = 0; i < table.length; i++) {
+            table[i] = (byte) rnd.nextInt(Byte.MAX_VALUE + 1);
+          }
+          n.fill(table);
+        });
+    final CyberNet net = new CyberNet();
+    final CyberNeuron head = makeNonNegativeNeuron(rnd, 2, 254);
+    net.put(inner);
+    net.put(head);
+    for (int i = 0; i < 4; i++) {
+      net.link(net.addInputPin(), inner, i);
+    }
+    net.link(inner, 0, head, 0);
+    net.link(inner, 1, head, 1);
+    net.link(head, net.addOutput(), 0);
+
+    final int[][] samples = new int[16][4];
+    final int[] expected = new int[samples.length];
+    for (int s = 0; s < samples.length; s++) {
+      for (int i = 0; i < 4; i++) {
+        samples[s][i] = rnd.nextInt(4);
+      }
+      expected[s] = net.activate(samples[s])[0];
+    }
+
+    net.begin();
+    assertTrue(net.isTransactionActive());
+    inner.getEntities().stream()
+        .filter(CyberNeuron.class::isInstance)
+        .map(CyberNeuron.class::cast)
+        .forEach(n -> n.fill(new byte[n.getInputSize() * n.getRowLength()]));
+    head.setTableValue(3, -5);
+    net.rollback();
+    assertFalse(net.isTransactionActive());
+    for (int s = 0; s < samples.length; s++) {
+      assertEquals(expected[s], net.activate(samples[s])[0]);
+    }
+    assertThrowsExactly(IllegalStateException.class, net::commit);
+
+    net.begin();
+    final int headValue = head.getTableValue(3);
+    for (int i = 0; i < 40; i++) {
+      head.setTableValue(3, i);
+      head.setTableValue(head.getInputSize() * head.getRowLength() - 1 - i, 7);
+    }
+    assertEquals(41, head.getJournalSize());
+    inner.getEntities().stream()
+        .filter(CyberNeuron.class::isInstance)
+        .map(CyberNeuron.class::cast)
+        .forEach(n -> n.fill(new byte[n.getInputSize() * n.getRowLength()]));
+    head.setLock(true);
+    assertThrowsExactly(IllegalStateException.class, net::rollback);
+    assertTrue(inner.getEntities().stream()
+        .filter(CyberNeuron.class::isInstance)
+        .map(CyberNeuron.class::cast)
+        .allMatch(n -> n.getJournalSize() > 0));
+    head.setLock(false);
+    net.rollback();
+    assertEquals(headValue, head.getTableValue(3));
+    for (int s = 0; s < samples.length; s++) {
+      assertEquals(expected[s], net.activate(samples[s])[0]);
+    }
+  }
+
+  @Test
+  void testNet_BitSlicedBatch() {
+    final Random rnd = new Random(490L);
+    final CyberNet net = CyberNetBuilder.withInputs(40)
+        .addLayer(8, 10, 1, FanIn.randomK(49L))
+        .addLayer(2, 4, 1270, FanIn.windowed(4))
+        .build();
+    net.getEntities().stream()
+        .filter(CyberNeuron.class::isInstance)
+        .map(CyberNeuron.class::cast)
+        .forEach(n -> {
+          final byte[] table = new byte[n.getInputSize() * n.getRowLength()];
+          for (int i = 0; i < table.length; i++) {
+            table[i] = (byte) rnd.nextInt(Byte.MAX_VALUE + 1);
+          }
+          n.fill(table);
+          n.setLock(true);
+        });
+    assertThrowsExactly(IllegalStateException.class, net::makeBitSliced);
+    net.setLock(true);
+
+    final BitSlicedNet sliced = net.makeBitSliced();
+    assertEquals(8, sliced.getSlicedNeuronCount());
+    final byte[] samples = new byte[130 * 40];
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = (byte) rnd.nextInt(2);
+    }
+    assertArrayEquals(net.activateBatch(samples, 130), sliced.activateBatch(samples, 130));
+  }
+}
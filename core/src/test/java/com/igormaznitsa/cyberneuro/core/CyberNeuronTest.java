@@ -5,8 +5,17 @@ import static com.igormaznitsa.cyberneuro.core.ConfidenceDegree.MAY_BE_YES;
 import static com.igormaznitsa.cyberneuro.core.ConfidenceDegree.NO;
 import static com.igormaznitsa.cyberneuro.core.ConfidenceDegree.YES;
 import static com.igormaznitsa.cyberneuro.core.LearnStrategy.SEQUENTIAL;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 
 class CyberNeuronTest {
@@ -67,5 +76,348 @@ class CyberNeuronTest {
     assertEquals(YES, neuron.activateAsConfidence(new int[] {0}).get(0));
   }
 
+  @Test
+  void testUidsAreUniqueUnderParallelConstruction() {
+    final long distinct = IntStream.range(0, 20_000).parallel()
+        .mapToObj(i -> CyberNeuron.of(1, 1))
+        .mapToLong(CyberNeuron::getUid)
+        .distinct()
+        .count();
+    assertEquals(20_000, distinct);
+  }
+
+  @Test
+  void testCheckWithEarlyTermination() {
+    final Random rnd = new Random(36L);
+    final CyberNeuron neuron = CyberNeuron.of(40, 3);
+    for (int i = 0; i < 40 * 4; i++) {
+      neuron.setTableValue(i, i < 8 ? rnd.nextInt(256) - 128 : rnd.nextInt(5) - 2);
+    }
+    final int[] expected = new int[200];
+    final int[][] samples = new int[200][40];
+    for (int s = 0; s < samples.length; s++) {
+      for (int i = 0; i < 40; i++) {
+        samples[s][i] = rnd.nextInt(4);
+      }
+    }
+    for (int s = 0; s < samples.length; s++) {
+      expected[s] = neuron.check(0, samples[s]).ordinal();
+    }
+    neuron.setLock(true);
+    for (int s = 0; s < samples.length; s++) {
+      assertEquals(expected[s], neuron.check(0, samples[s]).ordinal());
+      assertEquals(CyberNeuron.toConfidence(neuron.calc(samples[s])),
+          neuron.check(0, samples[s]));
+    }
+    neuron.setLock(false);
+  }
+
+  @Test
+  void testSparseCalc() {
+    final Random rnd = new Random(37L);
+    final CyberNeuron neuron = CyberNeuron.of(100, 7);
+    final byte[] table = new byte[100 * 8];
+    rnd.nextBytes(table);
+    neuron.fill(table);
+    assertEquals(neuron.calc(new int[100]), neuron.getBaseline());
+
+    final int[] dense = new int[100];
+    final int[] indexes = {3, 41, 99};
+    final int[] values = {5, 0, 7};
+    for (int i = 0; i < indexes.length; i++) {
+      dense[indexes[i]] = values[i];
+    }
+    assertEquals(neuron.calc(dense), neuron.calcSparse(indexes, values, 3));
+    assertEquals(neuron.calc(new int[100]), neuron.calcSparse(indexes, values, 0));
+    assertThrowsExactly(IndexOutOfBoundsException.class,
+        () -> neuron.calcSparse(new int[] {100}, new int[] {1}, 1));
+    assertThrowsExactly(IllegalArgumentException.class,
+        () -> neuron.calcSparse(new int[] {3}, new int[] {8}, 1));
+
+    dense[41] = 2;
+    dense[3] = 1;
+    assertEquals(neuron.calc(dense),
+        neuron.calcSparse(new int[] {41, 3, 99, 3, 41}, new int[] {6, 5, 7, 1, 2}, 5));
+  }
+
+  @Test
+  void testFreshNeuronsShareInitialTable() {
+    final CyberNeuron first = CyberNeuron.of(8, 3);
+    final CyberNeuron second = CyberNeuron.of(8, 3);
+    assertTrue(first.isTableShared());
+    assertTrue(second.isTableShared());
+    assertEquals(first.asText().substring(first.asText().indexOf(',')),
+        second.asText().substring(second.asText().indexOf(',')));
+
+    final int[] inputs = {0, 1, 2, 3, 3, 2, 1, 0};
+    final int before = second.calc(inputs);
+    first.teach(inputs, SEQUENTIAL, before > 63 ? NO : YES);
+    assertFalse(first.isTableShared());
+    assertTrue(second.isTableShared());
+    assertEquals(before, second.calc(inputs));
+    assertEquals(before, CyberNeuron.of(8, 3).calc(inputs));
+  }
+
+  @Test
+  void testActivationCache() {
+    final CyberNeuron neuron = CyberNeuron.of(40, 3);
+    final ActivationCache cache =
+        neuron.enableActivationCache(64, CacheEviction.LEAST_RECENTLY_USED);
+    final int[] input = new int[40];
+    for (int i = 0; i < input.length; i++) {
+      input[i] = i % 4;
+    }
+    final int expected = neuron.calc(input);
+    assertEquals(0, cache.getHits() + cache.getMisses());
+
+    neuron.setLock(true);
+    assertEquals(expected, neuron.calc(input));
+    assertEquals(expected, neuron.calc(input));
+    assertEquals(1, cache.getMisses());
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getSize());
+
+    neuron.setLock(false);
+    assertEquals(0, cache.getSize());
+    neuron.teach(input, SEQUENTIAL, NO);
+    neuron.setLock(true);
+    assertEquals(NO, neuron.activateAsConfidence(input).get(0));
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  void testActivationCache_SizeNeverExceedsMaxEntries() {
+    for (final int maxEntries : new int[] {1, 300, 4097}) {
+      final CyberNeuron neuron = CyberNeuron.of(2, 255);
+      final ActivationCache cache =
+          neuron.enableActivationCache(maxEntries, CacheEviction.LEAST_RECENTLY_USED);
+      neuron.setLock(true);
+      for (int i = 0; i < 3 * maxEntries + 64; i++) {
+        final int[] input = {i & 0xFF, (i >>> 8) & 0xFF};
+        assertEquals(neuron.calc(input), neuron.calc(input));
+        assertTrue(cache.getSize() <= maxEntries);
+      }
+      assertTrue(cache.getEvictions() > 0L);
+      assertEquals(maxEntries, cache.getMaxEntries());
+    }
+  }
+
+  @Test
+  void testActivationCache_WideInputUsesMultiWordKey() {
+    final CyberNeuron neuron = CyberNeuron.of(100, 7);
+    final ActivationCache cache = neuron.enableActivationCache(16, CacheEviction.RANDOM);
+    neuron.setLock(true);
+    for (int i = 0; i < 100; i++) {
+      final int[] input = new int[100];
+      input[i % 100] = 1 + i % 7;
+      final int expected = neuron.calc(input);
+      assertEquals(expected, neuron.calc(input));
+    }
+    assertEquals(100, cache.getMisses());
+    assertEquals(100, cache.getHits());
+    assertFalse(cache.getSize() > 16);
+  }
+
+  @Test
+  void testActivationCache_OutOfRangeInputBypassesCache() {
+    final CyberNeuron neuron = CyberNeuron.of(3, 1);
+    final ActivationCache cache = neuron.enableActivationCache(16, CacheEviction.RANDOM);
+    neuron.setLock(true);
+    neuron.calc(new int[] {0, 2, 1});
+    assertEquals(0, cache.getHits() + cache.getMisses());
+  }
+
+  @Test
+  void testCompactInputEncodings() {
+    final CyberNeuron neuron = CyberNeuron.of(70, 2);
+    final Random rnd = new Random(777L);
+    final int samples = 20;
+    final int[][] vectors = new int[samples][70];
+    final byte[] bytes = new byte[samples * 70];
+    final long[] packed = new long[samples * neuron.getPackedWords()];
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+    for (int s = 0; s < samples; s++) {
+      for (int i = 0; i < 70; i++) {
+        vectors[s][i] = rnd.nextInt(3);
+        bytes[s * 70 + i] = (byte) vectors[s][i];
+      }
+      System.arraycopy(neuron.pack(vectors[s]), 0, packed, s * neuron.getPackedWords(),
+          neuron.getPackedWords());
+    }
+    buffer.put(bytes).flip();
+
+    final int[] fromBytes = new int[samples];
+    final int[] fromPacked = new int[samples];
+    final int[] fromBuffer = new int[samples];
+    neuron.calcBatch(bytes, samples, fromBytes);
+    neuron.calcPackedBatch(packed, samples, fromPacked);
+    neuron.calcBatch(buffer, fromBuffer);
+
+    for (int s = 0; s < samples; s++) {
+      final int expected = neuron.calc(vectors[s]);
+      assertEquals(expected, fromBytes[s]);
+      assertEquals(expected, fromPacked[s]);
+      assertEquals(expected, fromBuffer[s]);
+      assertEquals(expected, neuron.calcPacked(neuron.pack(vectors[s])));
+      assertEquals(expected, neuron.calc(s * 70, bytes));
+    }
+
+    assertThrowsExactly(IllegalArgumentException.class,
+        () -> neuron.calcBatch(bytes, samples, new int[samples - 1]));
+    assertThrowsExactly(IllegalArgumentException.class,
+        () -> neuron.calcBatch(bytes, samples + 1, new int[samples + 1]));
+    bytes[bytes.length - 1] = 3;
+    assertThrowsExactly(IllegalArgumentException.class,
+        () -> neuron.calcBatch(bytes, samples, fromBytes));
+  }
+
+  @Test
+  void testTeachFromByteBuffer() {
+    final CyberNeuron neuron = CyberNeuron.of(2, 1);
+    final ByteBuffer buffer = ByteBuffer.wrap(new byte[] {1, 1});
+    neuron.teach(buffer, SEQUENTIAL, YES);
+    assertEquals(YES, neuron.activateAsConfidence(new int[] {1, 1}).get(0));
+    neuron.teachPacked(neuron.pack(new int[] {1, 1}), SEQUENTIAL, NO);
+    assertEquals(NO, neuron.activateAsConfidence(new int[] {1, 1}).get(0));
+  }
+
+  @Test
+  void testCompressedTableLayouts() {
+    final CyberNeuron dense = CyberNeuron.of(4, 65535);
+    final CyberNeuron sparse = CyberNeuron.of(4, 65535, TableLayout.sparse());
+    assertEquals(TableLayout.sparse(), sparse.getTableLayout());
+    for (int i = 0; i < 4 * 65536; i++) {
+      assertEquals(dense.getTableValue(i), sparse.getTableValue(i));
+    }
+    assertTrue(sparse.findSharedTable().length < 2048);
+    final Random rnd = new Random(43L);
+    for (int s = 0; s < 50; s++) {
+      final int[] inputs = IntStream.range(0, 4).map(i -> rnd.nextInt(65536)).toArray();
+      assertEquals(dense.calc(inputs), sparse.calc(inputs));
+      final ConfidenceDegree expected = dense.calc(inputs) > 63 ? NO : YES;
+      dense.teach(inputs, SEQUENTIAL, expected);
+      sparse.teach(inputs, SEQUENTIAL, expected);
+      assertEquals(dense.calc(inputs), sparse.calc(inputs));
+      assertEquals(dense.getBaseline(), sparse.getBaseline());
+    }
+    assertEquals(4L * 65536L, dense.getOwnedTableBytes());
+    assertTrue(sparse.getOwnedTableBytes() < 4096L);
+    assertTrue(sparse.getOwnedTableBytes() + sparse.findSharedTable().length < 8192L);
+
+    final CyberNeuron copy = (CyberNeuron) sparse.makeCopy();
+    final int[] probe = {0, 65535, 12345, 777};
+    assertEquals(sparse.calc(probe), copy.calc(probe));
+    copy.setTableValue(0, 100);
+    assertEquals(dense.calc(probe), sparse.calc(probe));
+
+    final CyberNeuron bucketed = CyberNeuron.of(3, 4095, TableLayout.bucketed(16));
+    final CyberNeuron narrow = CyberNeuron.of(3, 255);
+    final int[] wide = {4095, 17, 160};
+    assertEquals(narrow.calc(new int[] {255, 1, 10}), bucketed.calc(wide));
+    bucketed.teach(wide, SEQUENTIAL, bucketed.calc(wide) > 63 ? NO : YES);
+    assertEquals(bucketed.calc(wide), bucketed.calc(new int[] {4080, 31, 175}));
+    assertEquals(3L * 256L, bucketed.getOwnedTableBytes());
+    assertThrowsExactly(IllegalArgumentException.class, () -> TableLayout.bucketed(0));
+  }
 
-}
\ No newline at end of file
+  @Test
+  void testParallelEvaluationOfWideNeuron() {
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final CyberNeuron parallel = CyberNeuron.of(40000, 3);
+      final byte[] ones = new byte[40000 * 4];
+      Arrays.fill(ones, (byte) 1);
+      parallel.fill(ones);
+      final CyberNeuron sequential = (CyberNeuron) parallel.makeCopy();
+      parallel.enableParallelEvaluation(pool, 1024);
+      assertEquals(pool, parallel.findParallelPool().orElseThrow());
+      assertTrue(sequential.findParallelPool().isEmpty());
+
+      final Random rnd = new Random(45L);
+      final int[] inputs = IntStream.range(0, 40000).map(i -> rnd.nextInt(4)).toArray();
+      assertEquals(40000, parallel.calc(inputs));
+      parallel.teach(inputs, SEQUENTIAL, NO);
+      sequential.teach(inputs, SEQUENTIAL, NO);
+      assertEquals(NO, parallel.activateAsConfidence(inputs).get(0));
+      assertEquals(sequential.calc(inputs), parallel.calc(inputs));
+      assertEquals(sequential.getBaseline(), parallel.getBaseline());
+      for (int s = 0; s < 5; s++) {
+        final int[] probe = IntStream.range(0, 40000).map(i -> rnd.nextInt(4)).toArray();
+        assertEquals(sequential.calc(probe), parallel.calc(probe));
+      }
+
+      parallel.teach(inputs, LearnStrategy.RANDOM, YES);
+      assertTrue(parallel.calc(inputs) > 102);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void testTransactionRollbackAndCommit() {
+    final CyberNeuron neuron = CyberNeuron.of(16, 255, TableLayout.sparse());
+    final String initial = neuron.asText();
+    final int initialBaseline = neuron.getBaseline();
+    final Random rnd = new Random(48L);
+
+    neuron.begin();
+    assertTrue(neuron.isTransactionActive());
+    assertThrowsExactly(IllegalStateException.class, neuron::begin);
+    for (int s = 0; s < 20; s++) {
+      final int[] inputs = IntStream.range(0, 16).map(i -> rnd.nextInt(4)).toArray();
+      neuron.teach(inputs, SEQUENTIAL, neuron.calc(inputs) > 63 ? NO : YES);
+    }
+    neuron.setTableValue(0, 11);
+    neuron.setTableValue(0, 12);
+    assertTrue(neuron.getJournalSize() <= 16 * 4 + 1);
+    neuron.rollback();
+    assertFalse(neuron.isTransactionActive());
+    assertEquals(initial, neuron.asText());
+    assertEquals(initialBaseline, neuron.getBaseline());
+
+    neuron.begin();
+    neuron.setTableValue(0, 42);
+    neuron.commit();
+    assertEquals(42, neuron.getTableValue(0));
+    assertThrowsExactly(IllegalStateException.class, neuron::rollback);
+  }
+
+  @Test
+  void testBitSlicedBinaryNeuron() {
+    final Random rnd = new Random(49L);
+    final CyberNeuron neuron = CyberNeuron.of(150, 1);
+    final byte[] table = new byte[300];
+    rnd.nextBytes(table);
+    neuron.fill(table);
+    neuron.setLock(true);
+    final BitSlicedNeuron sliced = neuron.makeBitSliced();
+
+    final int samples = 200;
+    final byte[] bytes = new byte[samples * 150];
+    final long[] packed = new long[samples * sliced.getPackedWords()];
+    final int[] expected = new int[samples];
+    for (int s = 0; s < samples; s++) {
+      final int[] inputs = IntStream.range(0, 150).map(i -> rnd.nextInt(2)).toArray();
+      for (int i = 0; i < inputs.length; i++) {
+        bytes[s * 150 + i] = (byte) inputs[i];
+      }
+      final long[] single = neuron.pack(inputs);
+      System.arraycopy(single, 0, packed, s * single.length, single.length);
+      expected[s] = neuron.calc(inputs);
+      assertEquals(expected[s], sliced.calcPacked(single));
+    }
+    final int[] fromBytes = new int[samples];
+    sliced.calcBatch(bytes, samples, fromBytes);
+    assertArrayEquals(expected, fromBytes);
+    final int[] fromPacked = new int[samples];
+    sliced.calcPackedBatch(packed, samples, fromPacked);
+    assertArrayEquals(expected, fromPacked);
+
+    bytes[7] = 2;
+    assertThrowsExactly(IllegalArgumentException.class,
+        () -> sliced.calcBatch(bytes, samples, fromBytes));
+    final CyberNeuron wide = CyberNeuron.of(2, 3);
+    wide.setLock(true);
+    assertThrowsExactly(IllegalArgumentException.class, wide::makeBitSliced);
+  }
+}